@@ -0,0 +1,39 @@
+package com.zj.dtv;
+
+import android.content.Context;
+
+/**
+ * Counts the measure / layout passes and the layout requests of a view.
+ */
+class CountingTextView extends DrawableTextView {
+
+    int measureCount, layoutCount, requestLayoutCount;
+
+    CountingTextView(Context context, DrawableTextStyle style) {
+        super(context, style);
+    }
+
+    void reset() {
+        measureCount = 0;
+        layoutCount = 0;
+        requestLayoutCount = 0;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        measureCount++;
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        layoutCount++;
+        super.onLayout(changed, left, top, right, bottom);
+    }
+
+    @Override
+    public void requestLayout() {
+        requestLayoutCount++;
+        super.requestLayout();
+    }
+}
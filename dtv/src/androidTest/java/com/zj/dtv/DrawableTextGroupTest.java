@@ -0,0 +1,124 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.view.View;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class DrawableTextGroupTest {
+
+    private DrawableTextGroup group;
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            group = new DrawableTextGroup(context);
+            group.setItems(Arrays.asList(new DrawableTextGroup.Item("All"), new DrawableTextGroup.Item("Unread"), new DrawableTextGroup.Item("Starred")));
+        });
+    }
+
+    @Test
+    public void itemSetSelectedKeepsSingleSelection() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            group.getItem(0).setSelected(true);
+            group.getItem(2).setSelected(true);
+            assertFalse(group.isItemSelected(0));
+            assertTrue(group.isItemSelected(2));
+            assertEquals(2, group.getSelectedIndex());
+        });
+    }
+
+    @Test
+    public void addedSelectedItemTakesSelectionOver() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            group.setItemSelected(0, true);
+            group.addItem(new DrawableTextGroup.Item("Archived").setSelected(true));
+            assertFalse(group.isItemSelected(0));
+            assertEquals(3, group.getSelectedIndex());
+        });
+    }
+
+    @Test
+    public void multipleChoiceKeepsSelections() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            group.setChoiceMode(DrawableTextGroup.ChoiceMode.multiple);
+            group.getItem(0).setSelected(true);
+            group.getItem(1).setSelected(true);
+            assertTrue(group.isItemSelected(0));
+            assertTrue(group.isItemSelected(1));
+            group.setChoiceMode(DrawableTextGroup.ChoiceMode.single);
+            assertTrue(group.isItemSelected(0));
+            assertFalse(group.isItemSelected(1));
+        });
+    }
+
+    @Test
+    public void badgesOfFirstRowAreInsideMeasuredSize() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            group.measure(spec, spec);
+            int width = group.getMeasuredWidth(), height = group.getMeasuredHeight();
+            assertEquals(0, group.getItem(0).getBounds().top);
+
+            group.setItemBadgeText(2, "12");
+            group.measure(spec, spec);
+            assertTrue("the first row is moved down by the badge", group.getItem(0).getBounds().top > 0);
+            assertTrue(group.getMeasuredHeight() > height);
+            assertTrue(group.getMeasuredWidth() > width);
+            assertTrue(group.getItem(2).getBounds().right < group.getMeasuredWidth());
+        });
+    }
+
+    @Test
+    public void badgeOffsetMovesBadgeInsideItem() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            group.setItemBadgeText(0, "1");
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            group.measure(spec, spec);
+            int height = group.getMeasuredHeight();
+            group.setBadgeOffset(1000, 1000);
+            group.measure(spec, spec);
+            assertTrue(group.getMeasuredHeight() < height);
+            assertEquals(0, group.getItem(0).getBounds().top);
+        });
+    }
+
+    @Test
+    public void itemsAreVirtualAccessibilityNodes() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            group.setItemBadgeText(1, "3");
+            group.setItemSelected(0, true);
+            AccessibilityNodeProvider provider = group.getAccessibilityNodeProvider();
+            AccessibilityNodeInfo host = provider.createAccessibilityNodeInfo(AccessibilityNodeProvider.HOST_VIEW_ID);
+            assertEquals(3, host.getChildCount());
+
+            AccessibilityNodeInfo first = provider.createAccessibilityNodeInfo(0);
+            assertEquals("All", first.getText().toString());
+            assertTrue(first.isCheckable());
+            assertTrue(first.isChecked());
+            AccessibilityNodeInfo second = provider.createAccessibilityNodeInfo(1);
+            assertFalse(second.isChecked());
+            assertEquals("Unread, 3", second.getContentDescription().toString());
+
+            assertTrue(provider.performAction(1, AccessibilityNodeInfo.ACTION_CLICK, null));
+            assertEquals(1, group.getSelectedIndex());
+            assertFalse(group.isItemSelected(0));
+            assertTrue(provider.createAccessibilityNodeInfo(1).isChecked());
+        });
+    }
+}
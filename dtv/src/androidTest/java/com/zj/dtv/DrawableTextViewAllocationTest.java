@@ -0,0 +1,115 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.os.Debug;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The draw path, measure / layout and the frames of a selection transition must not allocate once the layouts of both states were built.
+ */
+@RunWith(AndroidJUnit4.class)
+@SuppressWarnings("deprecation")
+public class DrawableTextViewAllocationTest {
+
+    private static final long FRAME_NANOS = 16_000_000L;
+    private DrawableTextView view;
+    private Canvas canvas;
+    private long frameTime;
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            DrawableTextStyle style = new DrawableTextStyle.Builder(context)
+                    .setTextColor(Color.GRAY, Color.RED)
+                    .setDrawables(new ColorDrawable(Color.BLUE), new ColorDrawable(Color.GREEN))
+                    .setDrawableSize(24, 24, 4)
+                    .setBackgrounds(new ColorDrawable(Color.WHITE), new ColorDrawable(Color.BLACK))
+                    .setBadgeEnable(true)
+                    .setAnimDuration(200)
+                    .build();
+            view = new DrawableTextView(context, style);
+            view.setContent("Home", "Home selected", null, false);
+            view.setBadgeCount(7);
+            view.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED), View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+            canvas = new Canvas(Bitmap.createBitmap(view.getMeasuredWidth() * 2, view.getMeasuredHeight() * 2, Bitmap.Config.ARGB_8888));
+            //Warm up: the layouts and the measurements of both states , the pools and the animator.
+            view.draw(canvas);
+            runTransition(true);
+            runTransition(false);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> view.setAnimDuration(0));
+    }
+
+    @Test
+    public void drawDoesNotAllocate() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            for (int i = 0; i < 20; i++) view.draw(canvas);
+            int count = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+            assertEquals("allocations in onDraw", 0, count);
+        });
+    }
+
+    @Test
+    public void measureAndLayoutDoNotAllocate() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            for (int i = 0; i < 20; i++) {
+                //Forced , so every pass runs onMeasure instead of the measure cache of View.
+                view.forceLayout();
+                view.measure(spec, spec);
+                view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+            }
+            int count = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+            assertEquals("allocations in measure and layout", 0, count);
+        });
+    }
+
+    @Test
+    public void selectionFramesDoNotAllocate() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            runTransition(true);
+            runTransition(false);
+            int count = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+            assertEquals("allocations in the frames of a selection transition", 0, count);
+        });
+    }
+
+    //Ticks the shared driver by hand , the test runs inside a single main thread message so no real frame interleaves.
+    private void runTransition(boolean selected) {
+        view.setSelected(selected);
+        for (int i = 0; i < 20; i++) {
+            frameTime += FRAME_NANOS;
+            DrawableTextView.AnimationDriver.get().doFrame(frameTime);
+            view.draw(canvas);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.zj.dtv;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.view.Choreographer;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The layout passes of a view attached to a window , where a setter only marks the layout dirty and the size is compared in the pre draw pass.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DrawableTextViewAttachedLayoutTest {
+
+    private ActivityScenario<TestActivity> scenario;
+    private CountingTextView view;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        scenario = ActivityScenario.launch(TestActivity.class);
+        scenario.onActivity(activity -> {
+            DrawableTextStyle style = new DrawableTextStyle.Builder(activity)
+                    .setTextColor(Color.GRAY, Color.RED)
+                    .setDrawables(new ColorDrawable(Color.BLUE), new ColorDrawable(Color.GREEN))
+                    .setDrawableSize(24, 24, 4)
+                    .setBadgeEnable(true)
+                    .build();
+            FrameLayout parent = new FrameLayout(activity);
+            view = new CountingTextView(activity, style);
+            view.setContent("Home", "Home selected", null, false);
+            parent.addView(view, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            activity.setContentView(parent);
+        });
+        awaitFrames();
+        scenario.onActivity(activity -> view.reset());
+    }
+
+    @After
+    public void tearDown() {
+        scenario.close();
+    }
+
+    @Test
+    public void sameSizeChangeDoesNotRequestLayout() throws InterruptedException {
+        scenario.onActivity(activity -> {
+            view.setText("Home");
+            view.setTextColor(Color.BLACK);
+            assertEquals("layout requests of the setters", 0, view.requestLayoutCount);
+        });
+        awaitFrames();
+        scenario.onActivity(activity -> {
+            assertEquals("layout requests of the pre draw pass", 0, view.requestLayoutCount);
+            assertEquals("measure passes", 0, view.measureCount);
+        });
+    }
+
+    @Test
+    public void sizeChangeRequestsOneLayout() throws InterruptedException {
+        int[] width = new int[1];
+        scenario.onActivity(activity -> {
+            width[0] = view.getWidth();
+            view.setText("Home with a much longer label");
+            assertEquals("layout requests of the setter", 0, view.requestLayoutCount);
+        });
+        awaitFrames();
+        scenario.onActivity(activity -> {
+            assertEquals("layout requests of the pre draw pass", 1, view.requestLayoutCount);
+            assertEquals("measure passes", 1, view.measureCount);
+            assertTrue(view.getWidth() > width[0]);
+        });
+    }
+
+    @Test
+    public void batchedChangesMeasureOncePerFrame() throws InterruptedException {
+        scenario.onActivity(activity -> {
+            view.update(() -> {
+                view.setText("Messages");
+                view.setTextSize(40);
+                view.setBadgeCount(12);
+            });
+            view.setTextSelected("Messages selected");
+            assertEquals("layout requests of the setters", 0, view.requestLayoutCount);
+            assertTrue(view.isAttachedToWindow());
+        });
+        awaitFrames();
+        scenario.onActivity(activity -> {
+            assertEquals("layout requests", 1, view.requestLayoutCount);
+            assertEquals("measure passes", 1, view.measureCount);
+            assertEquals("layout passes", 1, view.layoutCount);
+            view.reset();
+        });
+        awaitFrames();
+        scenario.onActivity(activity -> assertEquals("measure passes of the idle frames", 0, view.measureCount));
+    }
+
+    //Returns once the frame scheduled by the last change and the one after it were drawn.
+    private void awaitFrames() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> Choreographer.getInstance().postFrameCallback(t1 -> Choreographer.getInstance().postFrameCallback(t2 -> Choreographer.getInstance().postFrameCallback(t3 -> latch.countDown()))));
+        assertTrue("frames", latch.await(5, TimeUnit.SECONDS));
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+}
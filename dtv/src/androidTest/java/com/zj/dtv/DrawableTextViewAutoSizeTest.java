@@ -0,0 +1,52 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class DrawableTextViewAutoSizeTest {
+
+    @Test
+    public void longLabelShrinksWithoutMaxLines() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            DrawableTextStyle style = new DrawableTextStyle.Builder(context)
+                    .setMaxLength(200)
+                    .setAutoSizeTextRange(10, 40, 1)
+                    .build();
+            DrawableTextView view = new DrawableTextView(context, style);
+            view.setContent("A label that is much too long for the space it has", null, null, false);
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            view.measure(spec, spec);
+            float size = view.getTextPaint().getTextSize();
+            assertTrue("shrunk below max: " + size, size < 40);
+            assertTrue("not below min: " + size, size >= 10);
+            assertTrue("fits into max length: " + view.getMeasuredWidth(), view.getMeasuredWidth() <= 200);
+        });
+    }
+
+    @Test
+    public void shortLabelKeepsMaxSize() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            DrawableTextStyle style = new DrawableTextStyle.Builder(context)
+                    .setMaxLength(200)
+                    .setAutoSizeTextRange(10, 40, 1)
+                    .build();
+            DrawableTextView view = new DrawableTextView(context, style);
+            view.setContent("Home", null, null, false);
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            view.measure(spec, spec);
+            assertEquals(40f, view.getTextPaint().getTextSize(), 0f);
+        });
+    }
+}
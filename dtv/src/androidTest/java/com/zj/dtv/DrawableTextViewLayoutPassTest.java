@@ -0,0 +1,119 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Counts the measure and layout passes of a view in a parent , a frame is one measure and layout of the parent.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DrawableTextViewLayoutPassTest {
+
+    private FrameLayout parent;
+    private CountingTextView view;
+
+    @Before
+    public void setUp() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            DrawableTextStyle style = new DrawableTextStyle.Builder(context)
+                    .setTextColor(Color.GRAY, Color.RED)
+                    .setDrawables(new ColorDrawable(Color.BLUE), new ColorDrawable(Color.GREEN))
+                    .setDrawableSize(24, 24, 4)
+                    .setBadgeEnable(true)
+                    .build();
+            parent = new FrameLayout(context);
+            view = new CountingTextView(context, style);
+            parent.addView(view, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            view.setContent("Home", "Home selected", null, false);
+            frame();
+            view.reset();
+        });
+    }
+
+    @Test
+    public void idleFrameDoesNotMeasure() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            frame();
+            assertEquals("measure passes", 0, view.measureCount);
+            assertEquals("layout passes", 0, view.layoutCount);
+        });
+    }
+
+    @Test
+    public void measureIsIdempotent() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+            view.measure(spec, spec);
+            int w = view.getMeasuredWidth(), h = view.getMeasuredHeight();
+            view.forceLayout();
+            view.measure(spec, spec);
+            assertEquals(w, view.getMeasuredWidth());
+            assertEquals(h, view.getMeasuredHeight());
+            assertEquals("layout requests", 0, view.requestLayoutCount);
+        });
+    }
+
+    @Test
+    public void colorChangeDoesNotMeasure() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            view.setTextColor(Color.BLACK);
+            view.setBadgeTextColor(Color.WHITE);
+            assertEquals("layout requests", 0, view.requestLayoutCount);
+            frame();
+            assertEquals("measure passes", 0, view.measureCount);
+            assertFalse(view.isLayoutRequested());
+        });
+    }
+
+    @Test
+    public void settersDoNotMeasureSynchronously() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            int lookups = TextMeasureCache.getHitCount() + TextMeasureCache.getMissCount();
+            view.setText("Settings");
+            view.setTextSelected("Settings selected");
+            view.setBadgeText("new");
+            assertEquals("text measurements before the frame", lookups, TextMeasureCache.getHitCount() + TextMeasureCache.getMissCount());
+            frame();
+            assertEquals("measure passes", 1, view.measureCount);
+        });
+    }
+
+    @Test
+    public void batchedChangesMeasureOncePerFrame() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            view.update(() -> {
+                view.setText("Messages");
+                view.setTextSize(20);
+                view.setBadgeCount(12);
+            });
+            assertEquals("layout requests", 1, view.requestLayoutCount);
+            frame();
+            assertEquals("measure passes", 1, view.measureCount);
+            assertEquals("layout passes", 1, view.layoutCount);
+            view.reset();
+            frame();
+            assertEquals("measure passes of the next frame", 0, view.measureCount);
+        });
+    }
+
+    private void frame() {
+        int spec = View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.AT_MOST);
+        parent.measure(spec, spec);
+        parent.layout(0, 0, parent.getMeasuredWidth(), parent.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,9 @@
+package com.zj.dtv;
+
+import android.app.Activity;
+
+/**
+ * An empty window for the tests that need an attached view.
+ */
+public class TestActivity extends Activity {
+}
@@ -0,0 +1,109 @@
+package com.zj.dtv;
+
+import android.graphics.Paint;
+import android.util.LruCache;
+
+/**
+ * Process-wide LRU cache of the text sizes picked by the auto-size mode of {@link DrawableTextView}, see {@link DrawableTextView#setAutoSizeTextRange}.
+ * <p>
+ * The size is the largest of the presets min, min + step, ... max that lays the text out in 'maxLength' x 'maxLines' without an ellipsis ,
+ * found by a binary search over the presets. Each probe is a line breaking of {@link TextMeasureCache} that isn't cached , only the
+ * picked size is. The key is (text, paint values but the size, maxLength, maxLines, lineBreak, min, max, step) , so rebinding the same label never searches again.
+ */
+@SuppressWarnings("unused")
+public final class AutoSizeCache {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+    private static final LruCache<Key, Float> cache = new LruCache<>(DEFAULT_MAX_SIZE);
+
+    private AutoSizeCache() {
+    }
+
+    public static int getHitCount() {
+        return cache.hitCount();
+    }
+
+    public static int getMissCount() {
+        return cache.missCount();
+    }
+
+    public static void setMaxSize(int maxSize) {
+        cache.resize(maxSize);
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * The text size of the paint is changed by the search , the caller sets the result afterwards.
+     *
+     * @param lookupKey   a key owned by the caller and reused for the lookups , it is never stored in the cache.
+     * @return the largest preset that fits , min if none of them fits (the text is ellipsized then).
+     */
+    static float fit(Paint paint, String s, float maxLength, int maxLines, int lineBreak, float min, float max, float step, Key lookupKey) {
+        lookupKey.set(s, paint, maxLength, maxLines, lineBreak, min, max, step);
+        Float size = cache.get(lookupKey);
+        if (size != null) return size;
+        //Presets are min + i * step , the last one is clamped to max.
+        int count = (int) Math.ceil((max - min) / step) + 1;
+        int low = 0, high = count - 1, found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            paint.setTextSize(preset(mid, min, max, step));
+            if (!TextMeasureCache.isTruncated(paint, s, maxLength, maxLines, lineBreak)) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        size = preset(found, min, max, step);
+        //The key ignores the text size , the paint still gives the same key after the probes.
+        cache.put(new Key().set(s, paint, maxLength, maxLines, lineBreak, min, max, step), size);
+        return size;
+    }
+
+    private static float preset(int index, float min, float max, float step) {
+        return Math.min(max, min + index * step);
+    }
+
+    static final class Key {
+        private String text;
+        private final TextMeasureCache.PaintState paint = new TextMeasureCache.PaintState();
+        private float maxLength, min, max, step;
+        private int maxLines, lineBreak;
+
+        Key set(String text, Paint paint, float maxLength, int maxLines, int lineBreak, float min, float max, float step) {
+            this.text = text;
+            this.paint.setWithoutSize(paint);
+            this.maxLength = maxLength;
+            this.maxLines = maxLines;
+            this.lineBreak = lineBreak;
+            this.min = min;
+            this.max = max;
+            this.step = step;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return maxLength == k.maxLength && maxLines == k.maxLines && lineBreak == k.lineBreak && min == k.min && max == k.max && step == k.step && paint.equals(k.paint) && text.equals(k.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = text.hashCode();
+            h = 31 * h + paint.hashCode();
+            h = 31 * h + Float.floatToIntBits(maxLength);
+            h = 31 * h + maxLines;
+            h = 31 * h + lineBreak;
+            h = 31 * h + Float.floatToIntBits(min);
+            h = 31 * h + Float.floatToIntBits(max);
+            return 31 * h + Float.floatToIntBits(step);
+        }
+    }
+}
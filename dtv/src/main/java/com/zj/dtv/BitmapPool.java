@@ -0,0 +1,109 @@
+package com.zj.dtv;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread safe pool of mutable bitmaps for the off-screen rendering of {@link DrawableTextRenderer}.
+ * <p>
+ * A released bitmap is handed out again for any size that fits into its allocation , it's reconfigured and cleared instead of allocating a new one.
+ * The pool keeps at most {@link #getMaxBytes()} bytes , the oldest bitmaps are dropped first.
+ */
+@SuppressWarnings("unused")
+public final class BitmapPool {
+
+    public static final int DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+    private static final BitmapPool defaultPool = new BitmapPool(DEFAULT_MAX_BYTES);
+    private final List<Bitmap> bitmaps = new ArrayList<>();
+    private int maxBytes, bytes;
+
+    public BitmapPool(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static BitmapPool getDefault() {
+        return defaultPool;
+    }
+
+    /**
+     * @return a transparent mutable bitmap of the size , reused from the pool if possible.
+     */
+    public Bitmap obtain(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = take(width, height, config);
+        if (bitmap == null) return Bitmap.createBitmap(width, height, config);
+        bitmap.reconfigure(width, height, config);
+        bitmap.eraseColor(Color.TRANSPARENT);
+        return bitmap;
+    }
+
+    //The smallest pooled bitmap with the config that is large enough , bitmaps recycled by others are dropped on the way.
+    private synchronized Bitmap take(int width, int height, Bitmap.Config config) {
+        int needed = width * height * bytesPerPixel(config);
+        int index = -1, size = Integer.MAX_VALUE, total = 0;
+        for (int i = bitmaps.size() - 1; i >= 0; i--) {
+            Bitmap b = bitmaps.get(i);
+            if (b.isRecycled()) {
+                bitmaps.remove(i);
+                if (index > i) index--;
+                continue;
+            }
+            int count = b.getAllocationByteCount();
+            total += count;
+            if (b.getConfig() == config && count >= needed && count < size) {
+                index = i;
+                size = count;
+            }
+        }
+        bytes = total;
+        if (index < 0) return null;
+        bytes -= size;
+        return bitmaps.remove(index);
+    }
+
+    /**
+     * Give a bitmap back to the pool , it must not be used by the caller anymore.
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) return;
+        synchronized (this) {
+            int count = bitmap.getAllocationByteCount();
+            if (count > maxBytes || bitmaps.contains(bitmap)) return;
+            bitmaps.add(bitmap);
+            bytes += count;
+            trim();
+        }
+    }
+
+    public synchronized void setMaxBytes(int maxBytes) {
+        this.maxBytes = maxBytes;
+        trim();
+    }
+
+    public synchronized int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int getBytes() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        bitmaps.clear();
+        bytes = 0;
+    }
+
+    private void trim() {
+        while (bytes > maxBytes && !bitmaps.isEmpty()) {
+            bytes -= bitmaps.remove(0).getAllocationByteCount();
+        }
+    }
+
+    private static int bytesPerPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ALPHA_8) return 1;
+        if (config == Bitmap.Config.RGB_565) return 2;
+        return 4;
+    }
+}
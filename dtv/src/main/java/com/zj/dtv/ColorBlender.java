@@ -0,0 +1,86 @@
+package com.zj.dtv;
+
+/**
+ * Allocation free ARGB interpolation between two colors , replaces the boxing ArgbEvaluator in the draw path.
+ * <p>
+ * The channels of the end points are decoded once and kept until one of the colors or the mode changes,
+ * a frame only costs a few multiplications and a table lookup.
+ */
+final class ColorBlender {
+
+    private static final int ENCODE_STEPS = 4096;
+    private static float[] gammaDecode, linearDecode;
+    private static int[] gammaEncode, linearEncode;
+
+    private int start, end, mode = -1;
+    private float a, r, g, b, da, dr, dg, db;
+
+    int evaluate(float fraction, int start, int end, int mode) {
+        if (fraction <= 0f || start == end) return start;
+        if (fraction >= 1f) return end;
+        if (start != this.start || end != this.end || mode != this.mode) update(start, end, mode);
+        int alpha = (int) ((a + da * fraction) * 255f + 0.5f);
+        if (mode == DrawableTextView.ColorMode.srgb) {
+            return alpha << 24 | ((int) (r + dr * fraction + 0.5f)) << 16 | ((int) (g + dg * fraction + 0.5f)) << 8 | (int) (b + db * fraction + 0.5f);
+        }
+        int[] encode = mode == DrawableTextView.ColorMode.linear ? linearEncode : gammaEncode;
+        return alpha << 24 | encode[(int) ((r + dr * fraction) * ENCODE_STEPS + 0.5f)] << 16 | encode[(int) ((g + dg * fraction) * ENCODE_STEPS + 0.5f)] << 8 | encode[(int) ((b + db * fraction) * ENCODE_STEPS + 0.5f)];
+    }
+
+    private void update(int start, int end, int mode) {
+        this.start = start;
+        this.end = end;
+        this.mode = mode;
+        a = (start >>> 24) / 255f;
+        da = (end >>> 24) / 255f - a;
+        if (mode == DrawableTextView.ColorMode.srgb) {
+            r = (start >> 16) & 0xff;
+            g = (start >> 8) & 0xff;
+            b = start & 0xff;
+        } else {
+            float[] decode = getDecodeTable(mode);
+            r = decode[(start >> 16) & 0xff];
+            g = decode[(start >> 8) & 0xff];
+            b = decode[start & 0xff];
+        }
+        float er, eg, eb;
+        if (mode == DrawableTextView.ColorMode.srgb) {
+            er = (end >> 16) & 0xff;
+            eg = (end >> 8) & 0xff;
+            eb = end & 0xff;
+        } else {
+            float[] decode = getDecodeTable(mode);
+            er = decode[(end >> 16) & 0xff];
+            eg = decode[(end >> 8) & 0xff];
+            eb = decode[end & 0xff];
+        }
+        dr = er - r;
+        dg = eg - g;
+        db = eb - b;
+    }
+
+    private static synchronized float[] getDecodeTable(int mode) {
+        boolean isLinear = mode == DrawableTextView.ColorMode.linear;
+        if (isLinear ? linearDecode == null : gammaDecode == null) {
+            float[] decode = new float[256];
+            int[] encode = new int[ENCODE_STEPS + 1];
+            for (int i = 0; i < decode.length; i++) {
+                float c = i / 255f;
+                decode[i] = isLinear ? (float) (c <= 0.04045f ? c / 12.92f : Math.pow((c + 0.055f) / 1.055f, 2.4)) : (float) Math.pow(c, 2.2);
+            }
+            for (int i = 0; i < encode.length; i++) {
+                float c = i / (float) ENCODE_STEPS;
+                double v = isLinear ? (c <= 0.0031308f ? c * 12.92f : 1.055f * Math.pow(c, 1 / 2.4) - 0.055f) : Math.pow(c, 1 / 2.2);
+                encode[i] = Math.max(0, Math.min(255, (int) (v * 255f + 0.5f)));
+            }
+            if (isLinear) {
+                linearEncode = encode;
+                linearDecode = decode;
+            } else {
+                gammaEncode = encode;
+                gammaDecode = decode;
+            }
+        }
+        return isLinear ? linearDecode : gammaDecode;
+    }
+}
@@ -0,0 +1,105 @@
+package com.zj.dtv;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * A drawable of a view that is isolated from the other users of its constant state only when it has to be.
+ * <p>
+ * Drawables inflated from the same resource share their constant state , so the alpha of a cross fade or a tint set on one of them shows up in
+ * all the others (e.g. BitmapDrawable / VectorDrawable keep both in the state). The holder draws the shared drawable as long as its
+ * alpha and tint are the ones needed , and switches to a private mutated copy the first time one of them differs. The copy is kept when the same
+ * resource is set again , so rebinding a row doesn't mutate again.
+ */
+final class DrawableHolder {
+
+    //The drawable as it was set , and the one that is drawn (the same, or the mutated copy).
+    private Drawable source, drawable;
+    private Drawable.ConstantState sourceState;
+    private boolean mutated = false, opaque = false;
+    //Always drawn from a private copy , for a view that draws off the main thread next to the views sharing the constant state.
+    private boolean isolated = false;
+    //0 keeps the tint of the drawable itself.
+    private int tint = 0, appliedTint = 0;
+    //Tracked here , Drawable#getAlpha returns 255 for the drawables that don't keep their alpha.
+    private int appliedAlpha = 255;
+
+    DrawableHolder() {
+    }
+
+    DrawableHolder(Drawable drawable) {
+        set(drawable);
+    }
+
+    Drawable get() {
+        return drawable;
+    }
+
+    Drawable getSource() {
+        return source;
+    }
+
+    void set(Drawable d) {
+        if (d == source || (d != null && d == drawable)) return;
+        Drawable.ConstantState state = d == null ? null : d.getConstantState();
+        source = d;
+        //Taken from the shared drawable , the alpha of the private copy changes while it fades.
+        opaque = d != null && d.getOpacity() == PixelFormat.OPAQUE;
+        //The same resource as before , its private copy can be reused.
+        if (mutated && state != null && state == sourceState) return;
+        sourceState = state;
+        drawable = d;
+        mutated = false;
+        appliedTint = 0;
+        appliedAlpha = 255;
+        if (isolated && d != null) mutate();
+    }
+
+    void isolate() {
+        isolated = true;
+        if (drawable != null) mutate();
+    }
+
+    void setTint(int tint) {
+        this.tint = tint;
+    }
+
+    int getTint() {
+        return tint;
+    }
+
+    //Opaque at full alpha , a layer drawn over it fully covers what's below.
+    boolean isOpaque() {
+        return opaque && (tint == 0 || Color.alpha(tint) == 255);
+    }
+
+    boolean isEmpty() {
+        return drawable == null;
+    }
+
+    void draw(Canvas canvas, Rect bounds, int alpha) {
+        if (tint != appliedTint) {
+            mutate();
+            if (tint == 0) drawable.setTintList(null);
+            else drawable.setTint(tint);
+            appliedTint = tint;
+        }
+        if (appliedAlpha != alpha) {
+            mutate();
+            drawable.setAlpha(alpha);
+            appliedAlpha = alpha;
+        }
+        drawable.setBounds(bounds);
+        drawable.draw(canvas);
+    }
+
+    private void mutate() {
+        if (mutated) return;
+        //A new instance first , mutate() alone would change a drawable instance that may be shared by the caller.
+        drawable = (sourceState != null ? sourceState.newDrawable() : drawable).mutate();
+        mutated = true;
+    }
+}
@@ -0,0 +1,857 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A row of tabs / filter chips in a single View , each {@link Item} is drawn like a DrawableTextView with a text, a drawable, a badge and a selected state.
+ * <p>
+ * All items share the paints and the style of the group, and their selection transitions are ticked by the same frame callback as DrawableTextView.
+ * Items flow from left to right and wrap into new lines unless 'dtv_singleLine' is set, a touch is dispatched to the item under it and
+ * changes the selection by the {@link ChoiceMode}. The width of an item is measured for both of its texts, so a selection never needs a relayout.
+ */
+@SuppressWarnings("unused")
+public class DrawableTextGroup extends View {
+
+    @Target(ElementType.PARAMETER)
+    public @interface ChoiceMode {
+        int none = 0;
+        int single = 1;
+        int multiple = 2;
+    }
+
+    private final List<Item> items = new ArrayList<>();
+    private final Paint textPaint = new Paint(), badgeTextPaint = new Paint();
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics(), badgeFontMetrics = new Paint.FontMetrics();
+    private final TextMeasureCache.Key measureKey = new TextMeasureCache.Key();
+    private final ColorBlender textColorBlender = new ColorBlender(), badgeTextColorBlender = new ColorBlender();
+    private final PointF onTouchDownPoint = new PointF();
+    private boolean isTouchDown = false;
+    private float textSize = 0, maxLength = -1;
+    private int textColor = Color.GRAY, textColorSelect = -1;
+    private float itemPaddingLeft = 0f, itemPaddingTop = 0f, itemPaddingRight = 0f, itemPaddingBottom = 0f;
+    private float drawableWidth = 0f, drawableHeight = 0f, drawablePadding = 0f;
+    private int orientation = DrawableTextView.Orientation.left;
+    private Drawable itemBackground, itemBackgroundSelected;
+    //The badge is never faded , it's drawn at full alpha for every item so one holder is enough.
+    private final DrawableHolder badgeBackground = new DrawableHolder();
+    private float horizontalSpacing = 0f, verticalSpacing = 0f;
+    private boolean singleLine = false;
+    private float badgeTextSize = 0f, badgePadding = 0f, badgeMinWidth = 0f, badgeMinHeight = 0f, badgeOffsetX = 0f, badgeOffsetY = 0f;
+    private int badgeTextColor = Color.WHITE, badgeTextColorSelected = -1;
+    private int animDuration = 0;
+    private int colorMode = DrawableTextView.ColorMode.gamma;
+    private int choiceMode = ChoiceMode.single;
+    private float contentWidth, contentHeight;
+    //The space the badges stick out of the items above the first row and on the right , reserved in the measured size.
+    private float badgeInsetTop, badgeInsetRight;
+    private int drawOpCount;
+    private OnItemClickListener onItemClickListener;
+    private OnItemSelectedListener onItemSelectedListener;
+    //Created when an accessibility service asks for the nodes , each item is exposed as a virtual view.
+    private ItemAccessibility accessibility;
+
+    public DrawableTextGroup(Context context) {
+        this(context, null, 0);
+    }
+
+    public DrawableTextGroup(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public DrawableTextGroup(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        textSize = getContext().getResources().getDisplayMetrics().density * 12;
+        badgeTextSize = textSize;
+        String fontPath = null;
+        int fontStyle = -1;
+        if (attrs != null) {
+            TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.DrawableTextGroup);
+            try {
+                textSize = ta.getDimension(R.styleable.DrawableTextGroup_dtv_textSize, textSize);
+                textColor = ta.getColor(R.styleable.DrawableTextGroup_dtv_textColor, textColor);
+                textColorSelect = ta.getColor(R.styleable.DrawableTextGroup_dtv_textColorSelect, textColorSelect);
+                maxLength = ta.getDimension(R.styleable.DrawableTextGroup_dtv_maxLength, -1f);
+                float padding = ta.getDimension(R.styleable.DrawableTextGroup_dtv_padding, 0f);
+                itemPaddingLeft = ta.getDimension(R.styleable.DrawableTextGroup_dtv_paddingLeft, padding);
+                itemPaddingTop = ta.getDimension(R.styleable.DrawableTextGroup_dtv_paddingTop, padding);
+                itemPaddingRight = ta.getDimension(R.styleable.DrawableTextGroup_dtv_paddingRight, padding);
+                itemPaddingBottom = ta.getDimension(R.styleable.DrawableTextGroup_dtv_paddingBottom, padding);
+                drawableWidth = ta.getDimension(R.styleable.DrawableTextGroup_dtv_drawableWidth, 0f);
+                drawableHeight = ta.getDimension(R.styleable.DrawableTextGroup_dtv_drawableHeight, 0f);
+                drawablePadding = ta.getDimension(R.styleable.DrawableTextGroup_dtv_drawablePadding, 0f);
+                orientation = ta.getInt(R.styleable.DrawableTextGroup_dtv_orientation, DrawableTextView.Orientation.left);
+                itemBackground = ta.getDrawable(R.styleable.DrawableTextGroup_dtv_background);
+                itemBackgroundSelected = ta.getDrawable(R.styleable.DrawableTextGroup_dtv_backgroundSelected);
+                badgeBackground.set(ta.getDrawable(R.styleable.DrawableTextGroup_dtv_badgeBackground));
+                badgeTextColor = ta.getColor(R.styleable.DrawableTextGroup_dtv_badgeTextColor, badgeTextColor);
+                badgeTextColorSelected = ta.getColor(R.styleable.DrawableTextGroup_dtv_badgeTextColorSelected, badgeTextColorSelected);
+                badgeTextSize = ta.getDimension(R.styleable.DrawableTextGroup_dtv_badgeTextSize, badgeTextSize);
+                badgePadding = ta.getDimension(R.styleable.DrawableTextGroup_dtv_badgePadding, 0f);
+                badgeMinWidth = ta.getDimension(R.styleable.DrawableTextGroup_dtv_badgeMinWidth, 0f);
+                badgeMinHeight = ta.getDimension(R.styleable.DrawableTextGroup_dtv_badgeMinHeight, 0f);
+                badgeOffsetX = ta.getDimension(R.styleable.DrawableTextGroup_dtv_badgeOffsetX, 0f);
+                badgeOffsetY = ta.getDimension(R.styleable.DrawableTextGroup_dtv_badgeOffsetY, 0f);
+                animDuration = ta.getInt(R.styleable.DrawableTextGroup_dtv_animDuration, 0);
+                colorMode = ta.getInt(R.styleable.DrawableTextGroup_dtv_colorMode, DrawableTextView.ColorMode.gamma);
+                fontPath = ta.getString(R.styleable.DrawableTextGroup_dtv_textFontPath);
+                fontStyle = ta.getInt(R.styleable.DrawableTextGroup_dtv_textStyle, -1);
+                horizontalSpacing = ta.getDimension(R.styleable.DrawableTextGroup_dtv_horizontalSpacing, 0f);
+                verticalSpacing = ta.getDimension(R.styleable.DrawableTextGroup_dtv_verticalSpacing, 0f);
+                singleLine = ta.getBoolean(R.styleable.DrawableTextGroup_dtv_singleLine, false);
+                choiceMode = ta.getInt(R.styleable.DrawableTextGroup_dtv_choiceMode, ChoiceMode.single);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                ta.recycle();
+            }
+        }
+        if (textColorSelect == -1) textColorSelect = textColor;
+        if (badgeTextColorSelected == -1) badgeTextColorSelected = badgeTextColor;
+        textPaint.setAntiAlias(true);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(textSize);
+        textPaint.setTypeface(TypefaceCache.get(context, fontPath, fontStyle));
+        badgeTextPaint.setAntiAlias(true);
+        badgeTextPaint.setTextAlign(Paint.Align.CENTER);
+        badgeTextPaint.setTextSize(badgeTextSize);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        float maxRowWidth = (singleLine || widthMode == MeasureSpec.UNSPECIFIED) ? Float.MAX_VALUE : MeasureSpec.getSize(widthMeasureSpec) - getPaddingLeft() - getPaddingRight();
+        layoutItems(maxRowWidth);
+        int w = resolveSizeAndState((int) Math.ceil(contentWidth) + getPaddingLeft() + getPaddingRight(), widthMeasureSpec, 0);
+        int h = resolveSizeAndState((int) Math.ceil(contentHeight) + getPaddingTop() + getPaddingBottom(), heightMeasureSpec, 0);
+        setMeasuredDimension(w, h);
+    }
+
+    /**
+     * Flow layout , an item that doesn't fit the rest of a row starts a new row, items are vertically centered in their row.
+     * The rows are moved down by the badges sticking out of the first row , the badges on the right are kept inside by a right inset.
+     */
+    private void layoutItems(float maxRowWidth) {
+        textPaint.getFontMetrics(fontMetrics);
+        badgeTextPaint.getFontMetrics(badgeFontMetrics);
+        badgeInsetRight = 0;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            measureItem(item);
+            measureBadge(item);
+            badgeInsetRight = Math.max(badgeInsetRight, badgeOverflowRight(item));
+        }
+        float x = 0, y = 0, rowHeight = 0, maxRight = 0;
+        int rowStart = 0;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            if (i > rowStart && x + item.width > maxRowWidth - badgeInsetRight) {
+                alignRow(rowStart, i, y, rowHeight);
+                y += rowHeight + verticalSpacing;
+                x = 0;
+                rowHeight = 0;
+                rowStart = i;
+            }
+            item.left = x;
+            x += item.width;
+            maxRight = Math.max(maxRight, x);
+            x += horizontalSpacing;
+            rowHeight = Math.max(rowHeight, item.height);
+        }
+        alignRow(rowStart, items.size(), y, rowHeight);
+        badgeInsetTop = 0;
+        for (int i = 0; i < items.size(); i++) badgeInsetTop = Math.max(badgeInsetTop, badgeOverflowTop(items.get(i)));
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            placeItem(item, item.left + getPaddingLeft(), item.top + badgeInsetTop + getPaddingTop());
+        }
+        contentWidth = items.isEmpty() ? 0 : maxRight + badgeInsetRight;
+        contentHeight = items.isEmpty() ? 0 : y + rowHeight + badgeInsetTop;
+    }
+
+    private void measureItem(Item item) {
+        item.measurement = measure(item.text);
+        item.measurementSelected = TextUtils.equals(item.text, item.textSelected) ? item.measurement : measure(item.textSelected);
+        float textWidth = Math.max(item.measurement == null ? 0 : item.measurement.width, item.measurementSelected == null ? 0 : item.measurementSelected.width);
+        float textHeight = item.measurement == null && item.measurementSelected == null ? 0 : fontMetrics.descent - fontMetrics.ascent;
+        boolean hasDrawable = !item.drawable.isEmpty() || !item.selectedDrawable.isEmpty();
+        float dw = hasDrawable ? drawableWidth : 0, dh = hasDrawable ? drawableHeight : 0, dp = hasDrawable && textWidth > 0 ? drawablePadding : 0;
+        if (orientation == DrawableTextView.Orientation.top || orientation == DrawableTextView.Orientation.bottom) {
+            item.blockWidth = Math.max(textWidth, dw);
+            item.blockHeight = textHeight + dh + dp;
+        } else {
+            item.blockWidth = textWidth + dw + dp;
+            item.blockHeight = Math.max(textHeight, dh);
+        }
+        item.textWidth = textWidth;
+        item.textHeight = textHeight;
+        item.width = item.blockWidth + itemPaddingLeft + itemPaddingRight;
+        item.height = item.blockHeight + itemPaddingTop + itemPaddingBottom;
+    }
+
+    private TextMeasureCache.Measurement measure(String s) {
+        if (TextUtils.isEmpty(s)) return null;
+        return TextMeasureCache.measure(textPaint, s, maxLength, -1, 1, DrawableTextView.LineBreak.chars, measureKey);
+    }
+
+    private void alignRow(int start, int end, float y, float rowHeight) {
+        for (int i = start; i < end; i++) {
+            Item item = items.get(i);
+            item.top = y + (rowHeight - item.height) / 2f;
+        }
+    }
+
+    private void placeItem(Item item, float left, float top) {
+        item.bounds.set((int) (left + 0.5f), (int) (top + 0.5f), (int) (left + item.width + 0.5f), (int) (top + item.height + 0.5f));
+        boolean hasDrawable = !item.drawable.isEmpty() || !item.selectedDrawable.isEmpty();
+        float dw = hasDrawable ? drawableWidth : 0, dh = hasDrawable ? drawableHeight : 0, dp = hasDrawable && item.textWidth > 0 ? drawablePadding : 0;
+        float x = left + itemPaddingLeft, y = top + itemPaddingTop;
+        float drawableLeft, drawableTop, textCenterX, textCenterY;
+        switch (orientation) {
+            case DrawableTextView.Orientation.right:
+                textCenterX = x + item.textWidth / 2f;
+                textCenterY = y + item.blockHeight / 2f;
+                drawableLeft = x + item.textWidth + dp;
+                drawableTop = y + (item.blockHeight - dh) / 2f;
+                break;
+            case DrawableTextView.Orientation.top:
+                drawableLeft = x + (item.blockWidth - dw) / 2f;
+                drawableTop = y;
+                textCenterX = x + item.blockWidth / 2f;
+                textCenterY = y + dh + dp + item.textHeight / 2f;
+                break;
+            case DrawableTextView.Orientation.bottom:
+                textCenterX = x + item.blockWidth / 2f;
+                textCenterY = y + item.textHeight / 2f;
+                drawableLeft = x + (item.blockWidth - dw) / 2f;
+                drawableTop = y + item.textHeight + dp;
+                break;
+            default:
+                drawableLeft = x;
+                drawableTop = y + (item.blockHeight - dh) / 2f;
+                textCenterX = x + dw + dp + item.textWidth / 2f;
+                textCenterY = y + item.blockHeight / 2f;
+                break;
+        }
+        item.drawableRect.set((int) (drawableLeft + 0.5f), (int) (drawableTop + 0.5f), (int) (drawableLeft + dw + 0.5f), (int) (drawableTop + dh + 0.5f));
+        item.textX = textCenterX;
+        item.textY = textCenterY - (fontMetrics.ascent + fontMetrics.descent) / 2f;
+        placeBadge(item);
+    }
+
+    private void measureBadge(Item item) {
+        if (TextUtils.isEmpty(item.badgeText)) {
+            item.badgeWidth = 0;
+            item.badgeHeight = 0;
+            return;
+        }
+        item.badgeWidth = Math.max(badgeMinWidth, TextMeasureCache.measure(badgeTextPaint, item.badgeText, -1, -1, -1, DrawableTextView.LineBreak.chars, measureKey).width) + badgePadding * 2f;
+        item.badgeHeight = Math.max(badgeMinHeight, badgeFontMetrics.descent - badgeFontMetrics.ascent) + badgePadding * 2f;
+    }
+
+    //Relative to the top of the first row , a centered item lower than its row gives its badge more room.
+    private float badgeOverflowTop(Item item) {
+        return item.badgeHeight <= 0 ? 0 : Math.max(0, item.badgeHeight / 2f - badgeOffsetY - item.top);
+    }
+
+    private float badgeOverflowRight(Item item) {
+        return item.badgeWidth <= 0 ? 0 : Math.max(0, item.badgeWidth / 2f - badgeOffsetX);
+    }
+
+    //The center of a badge is the top right corner of its item , moved to the left by 'dtv_badgeOffsetX' and down by 'dtv_badgeOffsetY'.
+    private void placeBadge(Item item) {
+        if (TextUtils.isEmpty(item.badgeText)) {
+            item.badgeRect.setEmpty();
+            return;
+        }
+        float w = item.badgeWidth, h = item.badgeHeight;
+        float cx = item.bounds.right - badgeOffsetX, cy = item.bounds.top + badgeOffsetY;
+        item.badgeRect.set((int) (cx - w / 2f + 0.5f), (int) (cy - h / 2f + 0.5f), (int) (cx + w / 2f + 0.5f), (int) (cy + h / 2f + 0.5f));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int ops = 0;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            //All items share the background drawables , each one fades its own copy only while it's animated.
+            item.background.set(itemBackground);
+            item.backgroundSelected.set(itemBackgroundSelected);
+            ops += DrawableTextView.drawCrossFade(canvas, item.backgroundSelected, item.background, item.bounds, item.fraction, item.selected, false);
+            ops += DrawableTextView.drawCrossFade(canvas, item.selectedDrawable, item.drawable, item.drawableRect, item.fraction, item.selected, false);
+            TextMeasureCache.Measurement m = item.selected ? item.measurementSelected : item.measurement;
+            if (m != null) {
+                textPaint.setColor(textColorBlender.evaluate(item.fraction, textColor, textColorSelect, colorMode));
+                canvas.drawText(m.getLineText(0), m.lineStarts[0], m.lineEnds[0], item.textX, item.textY, textPaint);
+                ops++;
+            }
+            if (!item.badgeRect.isEmpty()) {
+                ops += DrawableTextView.drawCrossFade(canvas, null, badgeBackground, item.badgeRect, item.fraction, item.selected, true);
+                badgeTextPaint.setColor(badgeTextColorBlender.evaluate(item.fraction, badgeTextColor, badgeTextColorSelected, colorMode));
+                float baseline = item.badgeRect.exactCenterY() - (badgeFontMetrics.ascent + badgeFontMetrics.descent) / 2f;
+                canvas.drawText(item.badgeText, item.badgeRect.exactCenterX(), baseline, badgeTextPaint);
+                ops++;
+            }
+        }
+        drawOpCount = ops;
+    }
+
+    /**
+     * @see DrawableTextView#getDrawOpCount()
+     */
+    public int getDrawOpCount() {
+        return drawOpCount;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                onTouchDownPoint.set(event.getX(), event.getY());
+                isTouchDown = findItemAt(event.getX(), event.getY()) >= 0;
+                return isTouchDown || super.onTouchEvent(event);
+            case MotionEvent.ACTION_UP:
+                if (!isTouchDown) return super.onTouchEvent(event);
+                isTouchDown = false;
+                if (Math.abs(event.getX() - onTouchDownPoint.x) <= 30 && Math.abs(event.getY() - onTouchDownPoint.y) <= 30) {
+                    int index = findItemAt(onTouchDownPoint.x, onTouchDownPoint.y);
+                    if (index >= 0) clickItem(index);
+                }
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (isTouchDown && (Math.abs(event.getX() - onTouchDownPoint.x) > 30 || Math.abs(event.getY() - onTouchDownPoint.y) > 30)) {
+                    isTouchDown = false;
+                    ViewParent vp = getParent();
+                    if (vp != null) vp.requestDisallowInterceptTouchEvent(false);
+                    return false;
+                }
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                isTouchDown = false;
+                break;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private void clickItem(int index) {
+        performClick();
+        if (onItemClickListener != null) onItemClickListener.onItemClick(this, index);
+        onItemTouched(index);
+        if (accessibility != null) accessibility.sendEvent(index, AccessibilityEvent.TYPE_VIEW_CLICKED);
+    }
+
+    private void onItemTouched(int index) {
+        if (choiceMode == ChoiceMode.single) {
+            setItemSelected(index, true);
+        } else if (choiceMode == ChoiceMode.multiple) {
+            setItemSelected(index, !items.get(index).selected);
+        }
+    }
+
+    /**
+     * @return the index of the item at the position in view coordinates , -1 if there is none.
+     */
+    public int findItemAt(float x, float y) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).bounds.contains((int) x, (int) y)) return i;
+        }
+        return -1;
+    }
+
+    public void setItemSelected(int index, boolean selected) {
+        Item item = items.get(index);
+        if (item.selected == selected) return;
+        if (selected && choiceMode == ChoiceMode.single) {
+            for (int i = 0; i < items.size(); i++) {
+                if (i != index && items.get(i).selected) changeSelection(i, false);
+            }
+        }
+        changeSelection(index, selected);
+    }
+
+    private void changeSelection(int index, boolean selected) {
+        Item item = items.get(index);
+        item.selected = selected;
+        if (animDuration > 0 && isAttachedToWindow()) {
+            if (item.animator == null) item.animator = createAnimator(item);
+            item.animator.setDuration(animDuration);
+            item.animator.start(selected);
+        } else {
+            if (item.animator != null) item.animator.jumpTo(selected ? 1f : 0f);
+            item.fraction = selected ? 1f : 0f;
+        }
+        invalidate();
+        if (accessibility != null) accessibility.sendEvent(index, selected ? AccessibilityEvent.TYPE_VIEW_SELECTED : AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED);
+        if (onItemSelectedListener != null) onItemSelectedListener.onItemSelected(this, index, selected);
+    }
+
+    //Every item has its own fraction , all running animators are ticked by the shared frame callback of DrawableTextView.
+    private DrawableTextView.DrawableValueAnimator createAnimator(Item item) {
+        DrawableTextView.DrawableValueAnimator animator = new DrawableTextView.DrawableValueAnimator();
+        animator.jumpTo(item.fraction);
+        animator.setOnAnimListener(fraction -> {
+            item.fraction = fraction;
+            invalidate();
+        });
+        return animator;
+    }
+
+    public int getSelectedIndex() {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).selected) return i;
+        }
+        return -1;
+    }
+
+    public boolean isItemSelected(int index) {
+        return items.get(index).selected;
+    }
+
+    public void clearSelection() {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).selected) changeSelection(i, false);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            if (item.animator != null && item.animator.isRunning()) item.animator.end();
+        }
+    }
+
+    public void setItems(List<Item> items) {
+        for (int i = 0; i < this.items.size(); i++) detachItem(this.items.get(i));
+        this.items.clear();
+        if (items != null) for (int i = 0; i < items.size(); i++) attachItem(items.get(i));
+        requestLayout();
+        invalidate();
+        if (accessibility != null) accessibility.onItemsChanged();
+    }
+
+    public void addItem(Item item) {
+        attachItem(item);
+        requestLayout();
+        invalidate();
+        if (accessibility != null) accessibility.onItemsChanged();
+    }
+
+    public void removeItem(int index) {
+        detachItem(items.remove(index));
+        requestLayout();
+        invalidate();
+        if (accessibility != null) accessibility.onItemsChanged();
+    }
+
+    //The animator of a removed item would keep ticking in the shared driver and invalidating this group , it's finished and dropped.
+    private void detachItem(Item item) {
+        item.group = null;
+        if (item.animator != null) {
+            item.animator.jumpTo(item.selected ? 1f : 0f);
+            item.animator = null;
+        }
+        item.fraction = item.selected ? 1f : 0f;
+    }
+
+    //A selected item added in single choice mode takes the selection over from the others.
+    private void attachItem(Item item) {
+        items.add(item);
+        item.group = this;
+        if (item.selected && choiceMode == ChoiceMode.single) {
+            for (int i = 0; i < items.size() - 1; i++) {
+                if (items.get(i).selected) changeSelection(i, false);
+            }
+        }
+    }
+
+    public Item getItem(int index) {
+        return items.get(index);
+    }
+
+    public int getItemCount() {
+        return items.size();
+    }
+
+    /**
+     * Call it after an item was changed by its setters.
+     */
+    public void notifyItemChanged(int index) {
+        requestLayout();
+        invalidate();
+        if (accessibility != null) accessibility.onItemsChanged();
+    }
+
+    /**
+     * A badge never changes the size of an item , so only the badge of the item is placed again before the redraw.
+     * The group is laid out again only if the new badge sticks out further than the reserved insets.
+     */
+    public void setItemBadgeText(int index, String badgeText) {
+        Item item = items.get(index);
+        if (TextUtils.equals(item.badgeText, badgeText)) return;
+        item.badgeText = badgeText;
+        badgeTextPaint.getFontMetrics(badgeFontMetrics);
+        measureBadge(item);
+        if (badgeOverflowTop(item) > badgeInsetTop || badgeOverflowRight(item) > badgeInsetRight) requestLayout();
+        placeBadge(item);
+        invalidate();
+        if (accessibility != null) accessibility.sendEvent(index, AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED);
+    }
+
+    /**
+     * @param offsetX moves the center of the badges to the left of the top right corner of their items.
+     * @param offsetY moves the center of the badges down from the top right corner of their items.
+     */
+    public void setBadgeOffset(float offsetX, float offsetY) {
+        this.badgeOffsetX = offsetX;
+        this.badgeOffsetY = offsetY;
+        requestLayout();
+        invalidate();
+    }
+
+    //Switching to single choice keeps the first selected item only.
+    public void setChoiceMode(@ChoiceMode int choiceMode) {
+        this.choiceMode = choiceMode;
+        if (choiceMode != ChoiceMode.single) return;
+        int selected = getSelectedIndex();
+        for (int i = selected + 1; selected >= 0 && i < items.size(); i++) {
+            if (items.get(i).selected) changeSelection(i, false);
+        }
+    }
+
+    public int getChoiceMode() {
+        return choiceMode;
+    }
+
+    public void setSingleLine(boolean singleLine) {
+        this.singleLine = singleLine;
+        requestLayout();
+    }
+
+    public void setSpacing(float horizontalSpacing, float verticalSpacing) {
+        this.horizontalSpacing = horizontalSpacing;
+        this.verticalSpacing = verticalSpacing;
+        requestLayout();
+    }
+
+    public void setTextColor(int textColor, int textColorSelect) {
+        this.textColor = textColor;
+        this.textColorSelect = textColorSelect;
+        invalidate();
+    }
+
+    public void setBadgeTextColor(int badgeTextColor, int badgeTextColorSelected) {
+        this.badgeTextColor = badgeTextColor;
+        this.badgeTextColorSelected = badgeTextColorSelected;
+        invalidate();
+    }
+
+    public void setAnimDuration(int animDuration) {
+        this.animDuration = animDuration;
+    }
+
+    public Paint getTextPaint() {
+        return textPaint;
+    }
+
+    public Paint getBadgeTextPaint() {
+        return badgeTextPaint;
+    }
+
+    public void setOnItemClickListener(OnItemClickListener onItemClickListener) {
+        this.onItemClickListener = onItemClickListener;
+    }
+
+    public void setOnItemSelectedListener(OnItemSelectedListener onItemSelectedListener) {
+        this.onItemSelectedListener = onItemSelectedListener;
+    }
+
+    @Override
+    public AccessibilityNodeProvider getAccessibilityNodeProvider() {
+        if (accessibility == null) accessibility = new ItemAccessibility();
+        return accessibility;
+    }
+
+    @Override
+    public boolean dispatchHoverEvent(MotionEvent event) {
+        if (accessibility != null && accessibility.onHover(event)) return true;
+        return super.dispatchHoverEvent(event);
+    }
+
+    /**
+     * The items are drawn by the group , so they are exposed to accessibility services as virtual views: one node per item with its text
+     * and badge, its selected / checked state and a click action that selects it like a touch does. Touch exploration moves over them by hover events.
+     */
+    private final class ItemAccessibility extends AccessibilityNodeProvider {
+        private final Rect tempRect = new Rect();
+        private final int[] tempLocation = new int[2];
+        private int focusedId = HOST_VIEW_ID, hoveredId = HOST_VIEW_ID;
+
+        @Override
+        public AccessibilityNodeInfo createAccessibilityNodeInfo(int virtualViewId) {
+            if (virtualViewId == HOST_VIEW_ID) {
+                AccessibilityNodeInfo info = AccessibilityNodeInfo.obtain(DrawableTextGroup.this);
+                onInitializeAccessibilityNodeInfo(info);
+                for (int i = 0; i < items.size(); i++) info.addChild(DrawableTextGroup.this, i);
+                info.setCollectionInfo(AccessibilityNodeInfo.CollectionInfo.obtain(1, items.size(), false, selectionMode()));
+                return info;
+            }
+            if (virtualViewId < 0 || virtualViewId >= items.size()) return null;
+            Item item = items.get(virtualViewId);
+            AccessibilityNodeInfo info = AccessibilityNodeInfo.obtain(DrawableTextGroup.this, virtualViewId);
+            info.setParent(DrawableTextGroup.this);
+            info.setPackageName(getContext().getPackageName());
+            info.setClassName(Item.class.getName());
+            info.setText(item.selected ? item.textSelected : item.text);
+            info.setContentDescription(describe(item));
+            info.setEnabled(isEnabled());
+            info.setFocusable(true);
+            info.setClickable(true);
+            info.setCheckable(choiceMode != ChoiceMode.none);
+            info.setChecked(item.selected);
+            info.setSelected(item.selected);
+            info.setVisibleToUser(!item.bounds.isEmpty());
+            info.setCollectionItemInfo(AccessibilityNodeInfo.CollectionItemInfo.obtain(0, 1, virtualViewId, 1, false, item.selected));
+            info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_CLICK);
+            if (focusedId == virtualViewId) {
+                info.setAccessibilityFocused(true);
+                info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_CLEAR_ACCESSIBILITY_FOCUS);
+            } else {
+                info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_ACCESSIBILITY_FOCUS);
+            }
+            tempRect.set(item.bounds);
+            info.setBoundsInParent(tempRect);
+            getLocationOnScreen(tempLocation);
+            tempRect.offset(tempLocation[0], tempLocation[1]);
+            info.setBoundsInScreen(tempRect);
+            return info;
+        }
+
+        @Override
+        public boolean performAction(int virtualViewId, int action, Bundle arguments) {
+            if (virtualViewId == HOST_VIEW_ID) return performAccessibilityAction(action, arguments);
+            if (virtualViewId < 0 || virtualViewId >= items.size()) return false;
+            switch (action) {
+                case AccessibilityNodeInfo.ACTION_CLICK:
+                    if (!isEnabled()) return false;
+                    clickItem(virtualViewId);
+                    return true;
+                case AccessibilityNodeInfo.ACTION_ACCESSIBILITY_FOCUS:
+                    if (focusedId == virtualViewId) return false;
+                    if (focusedId != HOST_VIEW_ID) sendEvent(focusedId, AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUS_CLEARED);
+                    focusedId = virtualViewId;
+                    invalidate();
+                    sendEvent(virtualViewId, AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUSED);
+                    return true;
+                case AccessibilityNodeInfo.ACTION_CLEAR_ACCESSIBILITY_FOCUS:
+                    if (focusedId != virtualViewId) return false;
+                    focusedId = HOST_VIEW_ID;
+                    invalidate();
+                    sendEvent(virtualViewId, AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUS_CLEARED);
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public AccessibilityNodeInfo findFocus(int focus) {
+            if (focus == AccessibilityNodeInfo.FOCUS_ACCESSIBILITY && focusedId != HOST_VIEW_ID) return createAccessibilityNodeInfo(focusedId);
+            return null;
+        }
+
+        //Touch exploration , the item under the finger is announced once when the pointer enters it.
+        boolean onHover(MotionEvent event) {
+            AccessibilityManager am = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+            if (am == null || !am.isEnabled() || !am.isTouchExplorationEnabled()) return false;
+            switch (event.getAction()) {
+                case MotionEvent.ACTION_HOVER_ENTER:
+                case MotionEvent.ACTION_HOVER_MOVE:
+                    int index = findItemAt(event.getX(), event.getY());
+                    setHovered(index < 0 ? HOST_VIEW_ID : index);
+                    return index >= 0;
+                case MotionEvent.ACTION_HOVER_EXIT:
+                    if (hoveredId == HOST_VIEW_ID) return false;
+                    setHovered(HOST_VIEW_ID);
+                    return true;
+            }
+            return false;
+        }
+
+        private void setHovered(int id) {
+            if (hoveredId == id) return;
+            int previous = hoveredId;
+            hoveredId = id;
+            if (id != HOST_VIEW_ID) sendEvent(id, AccessibilityEvent.TYPE_VIEW_HOVER_ENTER);
+            if (previous != HOST_VIEW_ID) sendEvent(previous, AccessibilityEvent.TYPE_VIEW_HOVER_EXIT);
+        }
+
+        //The indices of the virtual views changed , the services read the nodes again.
+        void onItemsChanged() {
+            focusedId = HOST_VIEW_ID;
+            hoveredId = HOST_VIEW_ID;
+            ViewParent parent = getParent();
+            if (parent == null || !isAccessibilityEnabled()) return;
+            AccessibilityEvent event = AccessibilityEvent.obtain(AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED);
+            event.setContentChangeTypes(AccessibilityEvent.CONTENT_CHANGE_TYPE_SUBTREE);
+            event.setSource(DrawableTextGroup.this, HOST_VIEW_ID);
+            event.setPackageName(getContext().getPackageName());
+            event.setClassName(DrawableTextGroup.class.getName());
+            parent.requestSendAccessibilityEvent(DrawableTextGroup.this, event);
+        }
+
+        void sendEvent(int virtualViewId, int type) {
+            ViewParent parent = getParent();
+            if (parent == null || virtualViewId < 0 || virtualViewId >= items.size() || !isAccessibilityEnabled()) return;
+            Item item = items.get(virtualViewId);
+            AccessibilityEvent event = AccessibilityEvent.obtain(type);
+            event.setSource(DrawableTextGroup.this, virtualViewId);
+            event.setPackageName(getContext().getPackageName());
+            event.setClassName(Item.class.getName());
+            event.setEnabled(isEnabled());
+            event.setChecked(item.selected);
+            event.getText().add(item.selected ? item.textSelected : item.text);
+            event.setContentDescription(describe(item));
+            parent.requestSendAccessibilityEvent(DrawableTextGroup.this, event);
+        }
+
+        private boolean isAccessibilityEnabled() {
+            AccessibilityManager am = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+            return am != null && am.isEnabled();
+        }
+
+        private int selectionMode() {
+            if (choiceMode == ChoiceMode.single) return AccessibilityNodeInfo.CollectionInfo.SELECTION_MODE_SINGLE;
+            if (choiceMode == ChoiceMode.multiple) return AccessibilityNodeInfo.CollectionInfo.SELECTION_MODE_MULTIPLE;
+            return AccessibilityNodeInfo.CollectionInfo.SELECTION_MODE_NONE;
+        }
+
+        private CharSequence describe(Item item) {
+            String text = item.selected ? item.textSelected : item.text;
+            if (TextUtils.isEmpty(item.badgeText)) return text;
+            return TextUtils.isEmpty(text) ? item.badgeText : text + ", " + item.badgeText;
+        }
+    }
+
+    public interface OnItemClickListener {
+
+        void onItemClick(DrawableTextGroup group, int index);
+    }
+
+    public interface OnItemSelectedListener {
+
+        void onItemSelected(DrawableTextGroup group, int index, boolean selected);
+    }
+
+    /**
+     * An item of the group , configure it before it's added or call {@link #notifyItemChanged(int)} afterwards.
+     */
+    public static final class Item {
+        private String text, textSelected, badgeText;
+        private final DrawableHolder drawable = new DrawableHolder(), selectedDrawable = new DrawableHolder();
+        private final DrawableHolder background = new DrawableHolder(), backgroundSelected = new DrawableHolder();
+        private Object tag;
+        //The group the item was added to , the selection goes through it to follow its choice mode.
+        private DrawableTextGroup group;
+        private boolean selected;
+        private float fraction;
+        private DrawableTextView.DrawableValueAnimator animator;
+        private TextMeasureCache.Measurement measurement, measurementSelected;
+        private float left, top, width, height, badgeWidth, badgeHeight, blockWidth, blockHeight, textWidth, textHeight, textX, textY;
+        private final Rect bounds = new Rect(), drawableRect = new Rect(), badgeRect = new Rect();
+
+        public Item(String text) {
+            this.text = text;
+            this.textSelected = text;
+        }
+
+        public Item setText(String text) {
+            this.text = text;
+            return this;
+        }
+
+        public Item setTextSelected(String textSelected) {
+            this.textSelected = textSelected;
+            return this;
+        }
+
+        public Item setDrawable(Drawable drawable, Drawable selectedDrawable) {
+            this.drawable.set(drawable);
+            this.selectedDrawable.set(selectedDrawable);
+            return this;
+        }
+
+        public Item setBadgeText(String badgeText) {
+            this.badgeText = badgeText;
+            return this;
+        }
+
+        /**
+         * Once the item is in a group this is the same as {@link DrawableTextGroup#setItemSelected} , so single choice mode deselects the others.
+         */
+        public Item setSelected(boolean selected) {
+            if (group != null) {
+                group.setItemSelected(group.items.indexOf(this), selected);
+                return this;
+            }
+            this.selected = selected;
+            this.fraction = selected ? 1f : 0f;
+            return this;
+        }
+
+        public Item setTag(Object tag) {
+            this.tag = tag;
+            return this;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getTextSelected() {
+            return textSelected;
+        }
+
+        public String getBadgeText() {
+            return badgeText;
+        }
+
+        public boolean isSelected() {
+            return selected;
+        }
+
+        public Object getTag() {
+            return tag;
+        }
+
+        public Rect getBounds() {
+            return bounds;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Draws the content of a {@link DrawableTextView} without a window , e.g. into the bitmaps of map markers, notification icons or widgets.
+ * <p>
+ * The renderer owns a view that is never attached and never exposed , it runs the same layout and drawing as a real view but nothing is
+ * posted to the main thread and no animation is started , so {@link #render()} can be used on any thread. The view itself is always
+ * constructed on the main thread , the constructor of View fills static caches (e.g. ViewConfiguration) that the inflation of the main thread
+ * uses without a lock. A renderer created on a worker thread waits for the main thread , so don't create one while the main thread waits for
+ * that worker. The drawables of the view are private mutated copies , drawing them doesn't race with the views sharing the style.
+ * A renderer is not thread safe itself , use one per worker thread and share the {@link DrawableTextStyle} and the {@link BitmapPool} instead:
+ * <pre>
+ * ThreadLocal&lt;DrawableTextRenderer&gt; renderers = ... new DrawableTextRenderer(context, style);
+ * Bitmap marker = renderers.get().setContent(label, null, badge, false).render();
+ * </pre>
+ * Selection changes are not animated , the content is drawn in its final state.
+ */
+@SuppressWarnings("unused")
+public final class DrawableTextRenderer {
+
+    private final DrawableTextView view;
+    private final Canvas canvas = new Canvas();
+    private final BitmapPool bitmapPool;
+    private Bitmap.Config config = Bitmap.Config.ARGB_8888;
+    private int fixedWidth = 0, fixedHeight = 0;
+    //Changed by everything but the content that changes the output , see LabelAtlas.
+    private int version = 0;
+
+    public DrawableTextRenderer(Context context, DrawableTextStyle style) {
+        this(context, style, BitmapPool.getDefault());
+    }
+
+    public DrawableTextRenderer(Context context, DrawableTextStyle style, BitmapPool bitmapPool) {
+        this.view = newView(context, style);
+        this.bitmapPool = bitmapPool;
+        view.setAnimDuration(0);
+        view.isolateDrawables();
+    }
+
+    private static DrawableTextView newView(Context context, DrawableTextStyle style) {
+        if (Looper.myLooper() == Looper.getMainLooper()) return new DrawableTextView(context, style);
+        DrawableTextView[] view = new DrawableTextView[1];
+        RuntimeException[] error = new RuntimeException[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(() -> {
+            try {
+                view[0] = new DrawableTextView(context, style);
+            } catch (RuntimeException e) {
+                error[0] = e;
+            } finally {
+                latch.countDown();
+            }
+        });
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while the view of the renderer was constructed on the main thread", e);
+        }
+        if (error[0] != null) throw error[0];
+        return view[0];
+    }
+
+    /**
+     * Set the content and lay it out , the size is available by {@link #getWidth()} / {@link #getHeight()} afterwards.
+     *
+     * @param textSelected the text in selected state , null means the same as text.
+     */
+    public DrawableTextRenderer setContent(String text, String textSelected, String badgeText, boolean selected) {
+        view.setContent(text, textSelected, badgeText, selected);
+        layout();
+        return this;
+    }
+
+    /**
+     * @param width  the exact width of the output , 0 to wrap the content.
+     * @param height the exact height of the output , 0 to wrap the content.
+     */
+    public DrawableTextRenderer setSize(int width, int height) {
+        if (width != fixedWidth || height != fixedHeight) version++;
+        this.fixedWidth = width;
+        this.fixedHeight = height;
+        layout();
+        return this;
+    }
+
+    public DrawableTextRenderer setConfig(Bitmap.Config config) {
+        this.config = config;
+        return this;
+    }
+
+    private void layout() {
+        int ws = fixedWidth > 0 ? View.MeasureSpec.makeMeasureSpec(fixedWidth, View.MeasureSpec.EXACTLY) : View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        int hs = fixedHeight > 0 ? View.MeasureSpec.makeMeasureSpec(fixedHeight, View.MeasureSpec.EXACTLY) : View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(ws, hs);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    int getFixedWidth() {
+        return fixedWidth;
+    }
+
+    int getFixedHeight() {
+        return fixedHeight;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    public int getWidth() {
+        return view.getMeasuredWidth();
+    }
+
+    public int getHeight() {
+        return view.getMeasuredHeight();
+    }
+
+    /**
+     * Draw the content at the origin of the canvas , with the size of {@link #getWidth()} x {@link #getHeight()}.
+     */
+    public void draw(Canvas canvas) {
+        view.onDraw(canvas);
+    }
+
+    /**
+     * Draw the content into the top left of a caller supplied bitmap , the bitmap is not cleared.
+     */
+    public void render(Bitmap bitmap) {
+        canvas.setBitmap(bitmap);
+        try {
+            draw(canvas);
+        } finally {
+            canvas.setBitmap(null);
+        }
+    }
+
+    /**
+     * @return a bitmap of the content , obtained from the pool. Give it back by {@link BitmapPool#release} once it's no longer shown.
+     */
+    public Bitmap render() {
+        Bitmap bitmap = bitmapPool.obtain(Math.max(1, getWidth()), Math.max(1, getHeight()), config);
+        render(bitmap);
+        return bitmap;
+    }
+
+    public BitmapPool getBitmapPool() {
+        return bitmapPool;
+    }
+
+    /**
+     * A numeric badge instead of the badge text of {@link #setContent} , see {@link DrawableTextView#setBadgeCount}.
+     */
+    public DrawableTextRenderer setBadgeCount(int count) {
+        version++;
+        view.setBadgeCount(count);
+        layout();
+        return this;
+    }
+}
@@ -0,0 +1,578 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Immutable resolved style of {@link DrawableTextView} , the flyweight of all attributes that don't depend on the content of a view.
+ * <p>
+ * {@link #get(Context, int)} resolves a style resource once per theme and keeps it in a process-wide cache , every view inflated with
+ * 'dtv_sharedStyle' or bound with {@link DrawableTextView#setStyle} reads the same instance instead of parsing its own attributes.
+ * The values are still copied into each view when it's bound , so the saving is the parsing and the drawable inflation , not the fields of a view.
+ * Drawables are kept as templates and handed out through their constant states , so each view gets its own drawable
+ * but the bitmaps / paths are shared. The text, selected text, badge text and the selected state stay per view.
+ */
+@SuppressWarnings("unused")
+public final class DrawableTextStyle {
+
+    public static final int DEFAULT_MAX_SIZE = 32;
+    private static final LruCache<Key, DrawableTextStyle> cache = new LruCache<>(DEFAULT_MAX_SIZE);
+    //The configuration changes that can resolve a style to other values , e.g. orientation or screen size changes keep the cached style.
+    private static final int RESOLVE_CONFIG_CHANGES = ActivityInfo.CONFIG_DENSITY | ActivityInfo.CONFIG_UI_MODE | ActivityInfo.CONFIG_LOCALE | ActivityInfo.CONFIG_FONT_SCALE;
+
+    //A style resolved for a single view hands its drawables over , a shared one only hands out copies.
+    private final boolean shared;
+    private final Configuration configuration;
+    final boolean selectionAble;
+    final float minWidth, minHeight;
+    final float drawableWidth, drawableHeight, drawablePadding;
+    final float paddingLeft, paddingTop, paddingRight, paddingBottom;
+    final int orientation, drawableOrientation, gravity;
+    final float textSize, textLineSpacing, maxLength;
+    final int textColor, textColorSelect, textGravity, maxLines, maxTextLength, lineBreak;
+    final float autoSizeMinTextSize, autoSizeMaxTextSize, autoSizeStep;
+    final int animDuration, colorMode;
+    final String fontPath, badgeFontPath;
+    final int fontStyle, badgeFontStyle;
+    final Typeface typeface, badgeTypeface;
+    final boolean badgeEnable, badgeInParentOverlay;
+    final int badgeTextColor, badgeTextColorSelected, badgeGravity;
+    final float badgeTextSize, badgePadding, badgeMinWidth, badgeMinHeight;
+    final float badgeMarginStart, badgeMarginEnd, badgeMarginTop, badgeMarginBottom;
+    private final Drawable replaceDrawable, selectedDrawable, backgroundDrawable, backgroundDrawableSelected, badgeBackground, badgeBackgroundSelected;
+    //Indexed by DrawableTextView.Orientation
+    private final Drawable[] compoundDrawables, compoundDrawablesSelected;
+    final float[] compoundWidths, compoundHeights, compoundPaddings;
+    //Resource ids of the drawables from xml , 0 if unknown. They let the prescaled drawables release the originals.
+    final int replaceDrawableRes, selectedDrawableRes;
+    final int[] compoundDrawableRes, compoundDrawableSelectedRes;
+    final boolean prescaleDrawables, layerCache;
+    final int drawableTint, drawableTintSelected;
+
+    private DrawableTextStyle(Context context, Builder b, boolean shared) {
+        this.shared = shared;
+        this.configuration = shared ? new Configuration(context.getResources().getConfiguration()) : null;
+        selectionAble = b.selectionAble;
+        minWidth = b.minWidth;
+        minHeight = b.minHeight;
+        drawableWidth = b.drawableWidth;
+        drawableHeight = b.drawableHeight;
+        drawablePadding = b.drawablePadding;
+        paddingLeft = b.paddingLeft;
+        paddingTop = b.paddingTop;
+        paddingRight = b.paddingRight;
+        paddingBottom = b.paddingBottom;
+        orientation = b.orientation;
+        drawableOrientation = b.drawableOrientation;
+        gravity = b.gravity;
+        textSize = b.textSize;
+        textLineSpacing = b.textLineSpacing;
+        maxLength = b.maxLength;
+        textColor = b.textColor;
+        textColorSelect = b.textColorSelect == -1 ? b.textColor : b.textColorSelect;
+        textGravity = b.textGravity;
+        maxLines = b.maxLines;
+        maxTextLength = b.maxTextLength;
+        lineBreak = b.lineBreak;
+        autoSizeMinTextSize = b.autoSizeMinTextSize;
+        autoSizeMaxTextSize = b.autoSizeMaxTextSize;
+        autoSizeStep = b.autoSizeStep;
+        animDuration = b.animDuration;
+        colorMode = b.colorMode;
+        fontPath = b.fontPath;
+        fontStyle = b.fontStyle;
+        typeface = TypefaceCache.get(context, fontPath, fontStyle);
+        replaceDrawable = b.replaceDrawable;
+        selectedDrawable = b.selectedDrawable;
+        backgroundDrawable = b.backgroundDrawable;
+        backgroundDrawableSelected = b.backgroundDrawableSelected;
+        compoundDrawables = b.compoundDrawables.clone();
+        compoundDrawablesSelected = new Drawable[4];
+        for (int side = 0; side < 4; side++) {
+            compoundDrawablesSelected[side] = b.compoundDrawablesSelected[side] == null ? compoundDrawables[side] : b.compoundDrawablesSelected[side];
+        }
+        compoundWidths = b.compoundWidths.clone();
+        compoundHeights = b.compoundHeights.clone();
+        compoundPaddings = b.compoundPaddings.clone();
+        replaceDrawableRes = b.replaceDrawableRes;
+        selectedDrawableRes = b.selectedDrawableRes;
+        compoundDrawableRes = b.compoundDrawableRes.clone();
+        compoundDrawableSelectedRes = new int[4];
+        for (int side = 0; side < 4; side++) {
+            compoundDrawableSelectedRes[side] = b.compoundDrawablesSelected[side] == null ? compoundDrawableRes[side] : b.compoundDrawableSelectedRes[side];
+        }
+        prescaleDrawables = b.prescaleDrawables;
+        layerCache = b.layerCache;
+        drawableTint = b.drawableTint;
+        drawableTintSelected = b.drawableTintSelected == 0 ? b.drawableTint : b.drawableTintSelected;
+        badgeEnable = b.badgeEnable;
+        badgeInParentOverlay = b.badgeInParentOverlay;
+        //Badge attributes only count if the badge is enabled , the same as the xml attributes.
+        badgeBackground = badgeEnable ? b.badgeBackground : null;
+        badgeBackgroundSelected = badgeEnable ? b.badgeBackgroundSelected : null;
+        badgeTextColor = badgeEnable ? b.badgeTextColor : 0;
+        badgeTextColorSelected = !badgeEnable ? Color.BLACK : b.badgeTextColorSelected == -1 ? b.badgeTextColor : b.badgeTextColorSelected;
+        badgeTextSize = badgeEnable ? b.badgeTextSize : 0f;
+        badgePadding = badgeEnable ? b.badgePadding : 0f;
+        badgeGravity = badgeEnable ? b.badgeGravity : 0;
+        badgeMinWidth = badgeEnable ? b.badgeMinWidth : 0f;
+        badgeMinHeight = badgeEnable ? b.badgeMinHeight : 0f;
+        badgeMarginStart = badgeEnable ? b.badgeMarginStart : 0f;
+        badgeMarginEnd = badgeEnable ? b.badgeMarginEnd : 0f;
+        badgeMarginTop = badgeEnable ? b.badgeMarginTop : 0f;
+        badgeMarginBottom = badgeEnable ? b.badgeMarginBottom : 0f;
+        badgeFontPath = b.badgeFontPath;
+        badgeFontStyle = b.badgeFontStyle;
+        badgeTypeface = badgeEnable ? TypefaceCache.get(context, badgeFontPath, badgeFontStyle) : null;
+    }
+
+    /**
+     * @param styleRes a style holding 'dtv_' attributes , it's resolved against the theme of the context , so '?attr' values follow the theme of each activity.
+     */
+    public static DrawableTextStyle get(Context context, int styleRes) {
+        Key key = new Key(styleRes, context.getTheme());
+        DrawableTextStyle style = cache.get(key);
+        if (style != null && (style.configuration.diff(context.getResources().getConfiguration()) & RESOLVE_CONFIG_CHANGES) == 0) return style;
+        TypedArray ta = context.obtainStyledAttributes(styleRes, R.styleable.DrawableTextView);
+        try {
+            style = new DrawableTextStyle(context, Builder.from(context, ta), true);
+        } finally {
+            ta.recycle();
+        }
+        cache.put(key, style);
+        return style;
+    }
+
+    public static void setMaxSize(int maxSize) {
+        cache.resize(maxSize);
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    Drawable getReplaceDrawable(Resources res) {
+        return obtain(replaceDrawable, res);
+    }
+
+    Drawable getSelectedDrawable(Resources res) {
+        return obtain(selectedDrawable, res);
+    }
+
+    Drawable getBackgroundDrawable(Resources res) {
+        return obtain(backgroundDrawable, res);
+    }
+
+    Drawable getBackgroundDrawableSelected(Resources res) {
+        return obtain(backgroundDrawableSelected, res);
+    }
+
+    Drawable getBadgeBackground(Resources res) {
+        return obtain(badgeBackground, res);
+    }
+
+    Drawable getBadgeBackgroundSelected(Resources res) {
+        return obtain(badgeBackgroundSelected, res);
+    }
+
+    Drawable getCompoundDrawable(int side, Resources res) {
+        return obtain(compoundDrawables[side], res);
+    }
+
+    Drawable getCompoundDrawableSelected(int side, Resources res) {
+        Drawable selected = compoundDrawablesSelected[side];
+        //The selected slot falls back to the same template , keep it the same instance for the view too.
+        return selected == compoundDrawables[side] ? null : obtain(selected, res);
+    }
+
+    boolean hasCompoundDrawable(int side) {
+        return compoundDrawables[side] != null || compoundDrawablesSelected[side] != null;
+    }
+
+    //A drawable without a constant state can't be copied , it's shared as is and the views set its bounds / alpha right before each draw.
+    private Drawable obtain(Drawable template, Resources res) {
+        if (template == null || !shared) return template;
+        Drawable.ConstantState state = template.getConstantState();
+        return state == null ? template : state.newDrawable(res);
+    }
+
+    private static final class Key {
+        private final int styleRes, hash;
+        //Held weakly , the cache must not keep the theme of a finished activity.
+        private final WeakReference<Resources.Theme> theme;
+
+        Key(int styleRes, Resources.Theme theme) {
+            this.styleRes = styleRes;
+            this.theme = new WeakReference<>(theme);
+            this.hash = 31 * styleRes + System.identityHashCode(theme);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            Resources.Theme t = theme.get();
+            //A collected theme never matches again , the entry is dropped by the LRU eviction.
+            return styleRes == k.styleRes && t != null && t == k.theme.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Builds a style in code without any AttributeSet / TypedArray , the defaults are the same as the xml attributes.
+     * The built style is shareable , pass it to {@link DrawableTextView#DrawableTextView(Context, DrawableTextStyle)} or {@link DrawableTextView#setStyle}.
+     */
+    public static final class Builder {
+        private final Context context;
+        private boolean selectionAble = true;
+        private float minWidth, minHeight;
+        private float drawableWidth, drawableHeight, drawablePadding;
+        private float paddingLeft, paddingTop, paddingRight, paddingBottom;
+        private int orientation = DrawableTextView.Orientation.left, drawableOrientation = DrawableTextView.DrawableOrientation.none, gravity = DrawableTextView.Gravity.center;
+        private float textSize, textLineSpacing = .1f, maxLength = -1f;
+        private int textColor = Color.GRAY, textColorSelect = -1, textGravity = DrawableTextView.TextGravity.center;
+        private int maxLines = Integer.MAX_VALUE, maxTextLength = -1, lineBreak = DrawableTextView.LineBreak.chars;
+        private float autoSizeMinTextSize = 0f, autoSizeMaxTextSize = 0f, autoSizeStep = 0f;
+        private int animDuration = 0, colorMode = DrawableTextView.ColorMode.gamma;
+        private String fontPath, badgeFontPath;
+        private int fontStyle = -1, badgeFontStyle = -1;
+        private Drawable replaceDrawable, selectedDrawable, backgroundDrawable, backgroundDrawableSelected, badgeBackground, badgeBackgroundSelected;
+        private final Drawable[] compoundDrawables = new Drawable[4], compoundDrawablesSelected = new Drawable[4];
+        private final float[] compoundWidths = new float[4], compoundHeights = new float[4], compoundPaddings = new float[4];
+        private int replaceDrawableRes, selectedDrawableRes;
+        private final int[] compoundDrawableRes = new int[4], compoundDrawableSelectedRes = new int[4];
+        private boolean prescaleDrawables = false, layerCache = false;
+        private int drawableTint = 0, drawableTintSelected = 0;
+        private boolean badgeEnable = false, badgeInParentOverlay = false;
+        private int badgeTextColor = 0, badgeTextColorSelected = Color.BLACK, badgeGravity = DrawableTextView.Gravity.center;
+        private float badgeTextSize, badgePadding, badgeMinWidth, badgeMinHeight;
+        private float badgeMarginStart, badgeMarginEnd, badgeMarginTop, badgeMarginBottom;
+
+        public Builder(Context context) {
+            this.context = context;
+            this.textSize = context.getResources().getDisplayMetrics().density * 12;
+        }
+
+        private static Builder from(Context context, TypedArray ta) {
+            Builder b = new Builder(context);
+            b.selectionAble = ta.getBoolean(R.styleable.DrawableTextView_dtv_selectionAble, true);
+            b.minWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_viewWidth, 0f);
+            b.minHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_viewHeight, 0f);
+            b.drawableWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_drawableWidth, 0f);
+            b.drawableHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_drawableHeight, 0f);
+            float padding = ta.getDimension(R.styleable.DrawableTextView_dtv_padding, 0f);
+            b.paddingLeft = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingLeft, padding);
+            b.paddingRight = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingRight, padding);
+            b.paddingBottom = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingBottom, padding);
+            b.paddingTop = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingTop, padding);
+            b.drawablePadding = ta.getDimension(R.styleable.DrawableTextView_dtv_drawablePadding, 0f);
+            b.replaceDrawable = ta.getDrawable(R.styleable.DrawableTextView_dtv_replaceDrawable);
+            b.selectedDrawable = ta.getDrawable(R.styleable.DrawableTextView_dtv_selectedDrawable);
+            b.replaceDrawableRes = ta.getResourceId(R.styleable.DrawableTextView_dtv_replaceDrawable, 0);
+            b.selectedDrawableRes = ta.getResourceId(R.styleable.DrawableTextView_dtv_selectedDrawable, 0);
+            b.prescaleDrawables = ta.getBoolean(R.styleable.DrawableTextView_dtv_prescaleDrawables, false);
+            b.layerCache = ta.getBoolean(R.styleable.DrawableTextView_dtv_layerCache, false);
+            b.drawableTint = ta.getColor(R.styleable.DrawableTextView_dtv_drawableTint, 0);
+            b.drawableTintSelected = ta.getColor(R.styleable.DrawableTextView_dtv_drawableTintSelected, 0);
+            b.backgroundDrawable = ta.getDrawable(R.styleable.DrawableTextView_dtv_background);
+            b.drawableOrientation = ta.getInt(R.styleable.DrawableTextView_dtv_drawableOrientation, DrawableTextView.DrawableOrientation.none);
+            b.backgroundDrawableSelected = ta.getDrawable(R.styleable.DrawableTextView_dtv_backgroundSelected);
+            b.initCompoundDrawables(ta);
+            b.textSize = ta.getDimension(R.styleable.DrawableTextView_dtv_textSize, b.textSize);
+            b.textColor = ta.getColor(R.styleable.DrawableTextView_dtv_textColor, b.textColor);
+            b.textColorSelect = ta.getColor(R.styleable.DrawableTextView_dtv_textColorSelect, -1);
+            b.textLineSpacing = ta.getDimension(R.styleable.DrawableTextView_dtv_textLineSpacing, .1f);
+            b.textGravity = ta.getInt(R.styleable.DrawableTextView_dtv_textGravity, DrawableTextView.TextGravity.center);
+            b.maxLines = ta.getInt(R.styleable.DrawableTextView_dtv_maxLine, Integer.MAX_VALUE);
+            b.maxLength = ta.getDimension(R.styleable.DrawableTextView_dtv_maxLength, -1f);
+            b.maxTextLength = ta.getInt(R.styleable.DrawableTextView_dtv_maxTextLength, -1);
+            b.lineBreak = ta.getInt(R.styleable.DrawableTextView_dtv_lineBreak, DrawableTextView.LineBreak.chars);
+            b.autoSizeMinTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_autoSizeMinTextSize, 0f);
+            b.autoSizeMaxTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_autoSizeMaxTextSize, 0f);
+            b.autoSizeStep = ta.getDimension(R.styleable.DrawableTextView_dtv_autoSizeStepGranularity, 0f);
+            b.orientation = ta.getInt(R.styleable.DrawableTextView_dtv_orientation, DrawableTextView.Orientation.left);
+            b.animDuration = ta.getInt(R.styleable.DrawableTextView_dtv_animDuration, 0);
+            b.colorMode = ta.getInt(R.styleable.DrawableTextView_dtv_colorMode, DrawableTextView.ColorMode.gamma);
+            b.gravity = ta.getInt(R.styleable.DrawableTextView_dtv_gravity, DrawableTextView.Gravity.center);
+            b.badgeEnable = ta.getBoolean(R.styleable.DrawableTextView_dtv_badgeEnable, false);
+            b.badgeInParentOverlay = ta.getBoolean(R.styleable.DrawableTextView_dtv_badgeInParentOverlay, false);
+            b.fontPath = ta.getString(R.styleable.DrawableTextView_dtv_textFontPath);
+            b.fontStyle = ta.getInt(R.styleable.DrawableTextView_dtv_textStyle, -1);
+            b.badgeFontPath = ta.getString(R.styleable.DrawableTextView_dtv_badgeTextFontPath);
+            b.badgeFontStyle = ta.getInt(R.styleable.DrawableTextView_dtv_badgeTextStyle, -1);
+            if (b.badgeEnable) {
+                b.badgeBackground = ta.getDrawable(R.styleable.DrawableTextView_dtv_badgeBackground);
+                b.badgeBackgroundSelected = ta.getDrawable(R.styleable.DrawableTextView_dtv_badgeBackgroundSelected);
+                b.badgeTextColor = ta.getColor(R.styleable.DrawableTextView_dtv_badgeTextColor, 0);
+                b.badgeTextColorSelected = ta.getColor(R.styleable.DrawableTextView_dtv_badgeTextColorSelected, Color.BLACK);
+                b.badgeTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeTextSize, 0f);
+                b.badgePadding = ta.getDimension(R.styleable.DrawableTextView_dtv_badgePadding, 0f);
+                b.badgeGravity = ta.getInt(R.styleable.DrawableTextView_dtv_badgeInGravity, DrawableTextView.Gravity.center);
+                float badgeMargin = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMargin, 0f);
+                b.badgeMinWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMinWidth, 0f);
+                b.badgeMinHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMinHeight, 0f);
+                b.badgeMarginStart = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginStart, badgeMargin);
+                b.badgeMarginEnd = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginEnd, badgeMargin);
+                b.badgeMarginTop = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginTop, badgeMargin);
+                b.badgeMarginBottom = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginBottom, badgeMargin);
+            }
+            return b;
+        }
+
+        private void initCompoundDrawables(TypedArray ta) {
+            final int[][] attrs = {
+                    {R.styleable.DrawableTextView_dtv_compoundLeft, R.styleable.DrawableTextView_dtv_compoundLeftSelected, R.styleable.DrawableTextView_dtv_compoundLeftWidth, R.styleable.DrawableTextView_dtv_compoundLeftHeight, R.styleable.DrawableTextView_dtv_compoundLeftPadding},
+                    {R.styleable.DrawableTextView_dtv_compoundTop, R.styleable.DrawableTextView_dtv_compoundTopSelected, R.styleable.DrawableTextView_dtv_compoundTopWidth, R.styleable.DrawableTextView_dtv_compoundTopHeight, R.styleable.DrawableTextView_dtv_compoundTopPadding},
+                    {R.styleable.DrawableTextView_dtv_compoundRight, R.styleable.DrawableTextView_dtv_compoundRightSelected, R.styleable.DrawableTextView_dtv_compoundRightWidth, R.styleable.DrawableTextView_dtv_compoundRightHeight, R.styleable.DrawableTextView_dtv_compoundRightPadding},
+                    {R.styleable.DrawableTextView_dtv_compoundBottom, R.styleable.DrawableTextView_dtv_compoundBottomSelected, R.styleable.DrawableTextView_dtv_compoundBottomWidth, R.styleable.DrawableTextView_dtv_compoundBottomHeight, R.styleable.DrawableTextView_dtv_compoundBottomPadding}};
+            for (int side = 0; side < attrs.length; side++) {
+                Drawable drawable = ta.getDrawable(attrs[side][0]);
+                Drawable selected = ta.getDrawable(attrs[side][1]);
+                if (drawable == null && selected == null) continue;
+                setCompoundDrawable(side, drawable, selected, ta.getDimension(attrs[side][2], drawableWidth), ta.getDimension(attrs[side][3], drawableHeight), ta.getDimension(attrs[side][4], drawablePadding));
+                compoundDrawableRes[side] = ta.getResourceId(attrs[side][0], 0);
+                compoundDrawableSelectedRes[side] = ta.getResourceId(attrs[side][1], 0);
+            }
+        }
+
+        public Builder setSelectionAble(boolean selectionAble) {
+            this.selectionAble = selectionAble;
+            return this;
+        }
+
+        public Builder setMinSize(float minWidth, float minHeight) {
+            this.minWidth = minWidth;
+            this.minHeight = minHeight;
+            return this;
+        }
+
+        public Builder setPadding(float left, float top, float right, float bottom) {
+            this.paddingLeft = left;
+            this.paddingTop = top;
+            this.paddingRight = right;
+            this.paddingBottom = bottom;
+            return this;
+        }
+
+        public Builder setOrientation(@DrawableTextView.Orientation int orientation) {
+            this.orientation = orientation;
+            return this;
+        }
+
+        public Builder setDrawableOrientation(@DrawableTextView.DrawableOrientation int drawableOrientation) {
+            this.drawableOrientation = drawableOrientation;
+            return this;
+        }
+
+        public Builder setGravity(@DrawableTextView.Gravity int gravity) {
+            this.gravity = gravity;
+            return this;
+        }
+
+        public Builder setDrawables(Drawable replaceDrawable, Drawable selectedDrawable) {
+            this.replaceDrawable = replaceDrawable;
+            this.selectedDrawable = selectedDrawable;
+            this.replaceDrawableRes = 0;
+            this.selectedDrawableRes = 0;
+            return this;
+        }
+
+        /**
+         * @see DrawableTextView#setPrescaleDrawables(boolean)
+         */
+        public Builder setPrescaleDrawables(boolean prescaleDrawables) {
+            this.prescaleDrawables = prescaleDrawables;
+            return this;
+        }
+
+        /**
+         * @see DrawableTextView#setDrawableTint(int, int)
+         */
+        public Builder setDrawableTint(int tint, int tintSelected) {
+            this.drawableTint = tint;
+            this.drawableTintSelected = tintSelected;
+            return this;
+        }
+
+        /**
+         * @see DrawableTextView#setLayerCacheEnabled(boolean)
+         */
+        public Builder setLayerCache(boolean layerCache) {
+            this.layerCache = layerCache;
+            return this;
+        }
+
+        public Builder setDrawableSize(float width, float height, float padding) {
+            this.drawableWidth = width;
+            this.drawableHeight = height;
+            this.drawablePadding = padding;
+            return this;
+        }
+
+        public Builder setBackgrounds(Drawable background, Drawable backgroundSelected) {
+            this.backgroundDrawable = background;
+            this.backgroundDrawableSelected = backgroundSelected;
+            return this;
+        }
+
+        /**
+         * @param selectedDrawable null means the same as drawable.
+         */
+        public Builder setCompoundDrawable(@DrawableTextView.Orientation int side, Drawable drawable, Drawable selectedDrawable, float width, float height, float padding) {
+            compoundDrawables[side] = drawable;
+            compoundDrawablesSelected[side] = selectedDrawable;
+            compoundWidths[side] = width;
+            compoundHeights[side] = height;
+            compoundPaddings[side] = padding;
+            compoundDrawableRes[side] = 0;
+            compoundDrawableSelectedRes[side] = 0;
+            return this;
+        }
+
+        public Builder setTextSize(float textSize) {
+            this.textSize = textSize;
+            return this;
+        }
+
+        public Builder setTextColor(int textColor, int textColorSelect) {
+            this.textColor = textColor;
+            this.textColorSelect = textColorSelect;
+            return this;
+        }
+
+        public Builder setTextLineSpacing(float textLineSpacing) {
+            this.textLineSpacing = textLineSpacing;
+            return this;
+        }
+
+        public Builder setTextGravity(@DrawableTextView.TextGravity int textGravity) {
+            this.textGravity = textGravity;
+            return this;
+        }
+
+        public Builder setMaxLines(int maxLines) {
+            this.maxLines = maxLines;
+            return this;
+        }
+
+        public Builder setMaxLength(float maxLength) {
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * @see DrawableTextView#setAutoSizeTextRange(float, float, float)
+         */
+        public Builder setAutoSizeTextRange(float min, float max, float step) {
+            this.autoSizeMinTextSize = min;
+            this.autoSizeMaxTextSize = max;
+            this.autoSizeStep = step;
+            return this;
+        }
+
+        public Builder setMaxTextLength(int maxTextLength) {
+            this.maxTextLength = maxTextLength;
+            return this;
+        }
+
+        public Builder setLineBreak(@DrawableTextView.LineBreak int lineBreak) {
+            this.lineBreak = lineBreak;
+            return this;
+        }
+
+        public Builder setAnimDuration(int animDuration) {
+            this.animDuration = animDuration;
+            return this;
+        }
+
+        public Builder setColorMode(@DrawableTextView.ColorMode int colorMode) {
+            this.colorMode = colorMode;
+            return this;
+        }
+
+        public Builder setFont(String fontPath, int fontStyle) {
+            this.fontPath = fontPath;
+            this.fontStyle = fontStyle;
+            return this;
+        }
+
+        public Builder setBadgeEnable(boolean badgeEnable) {
+            this.badgeEnable = badgeEnable;
+            return this;
+        }
+
+        public Builder setBadgeInParentOverlay(boolean badgeInParentOverlay) {
+            this.badgeInParentOverlay = badgeInParentOverlay;
+            return this;
+        }
+
+        public Builder setBadgeBackgrounds(Drawable badgeBackground, Drawable badgeBackgroundSelected) {
+            this.badgeBackground = badgeBackground;
+            this.badgeBackgroundSelected = badgeBackgroundSelected;
+            return this;
+        }
+
+        public Builder setBadgeTextColor(int badgeTextColor, int badgeTextColorSelected) {
+            this.badgeTextColor = badgeTextColor;
+            this.badgeTextColorSelected = badgeTextColorSelected;
+            return this;
+        }
+
+        public Builder setBadgeTextSize(float badgeTextSize) {
+            this.badgeTextSize = badgeTextSize;
+            return this;
+        }
+
+        public Builder setBadgePadding(float badgePadding) {
+            this.badgePadding = badgePadding;
+            return this;
+        }
+
+        public Builder setBadgeGravity(@DrawableTextView.Gravity int badgeGravity) {
+            this.badgeGravity = badgeGravity;
+            return this;
+        }
+
+        public Builder setBadgeMinSize(float badgeMinWidth, float badgeMinHeight) {
+            this.badgeMinWidth = badgeMinWidth;
+            this.badgeMinHeight = badgeMinHeight;
+            return this;
+        }
+
+        public Builder setBadgeMargins(float start, float top, float end, float bottom) {
+            this.badgeMarginStart = start;
+            this.badgeMarginTop = top;
+            this.badgeMarginEnd = end;
+            this.badgeMarginBottom = bottom;
+            return this;
+        }
+
+        public Builder setBadgeFont(String badgeFontPath, int badgeFontStyle) {
+            this.badgeFontPath = badgeFontPath;
+            this.badgeFontStyle = badgeFontStyle;
+            return this;
+        }
+
+        public DrawableTextStyle build() {
+            return new DrawableTextStyle(context, this, true);
+        }
+    }
+}
@@ -1,29 +1,37 @@
 package com.zj.dtv;
 
-import android.animation.ArgbEvaluator;
+import android.animation.TimeInterpolator;
 import android.animation.ValueAnimator;
-import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
+import android.graphics.PixelFormat;
 import android.graphics.PointF;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.graphics.Typeface;
+import android.graphics.RenderNode;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.text.TextUtils;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 import android.view.animation.AccelerateDecelerateInterpolator;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -46,29 +54,60 @@ import java.util.List;
 
 @SuppressWarnings("unused")
 public class DrawableTextView extends View {
-    private static final String ellipse = "\u2026";
     private float drawableWidth = 0;
     private float drawableHeight = 0;
-    private Drawable replaceDrawable, selectedDrawable, badgeBackground, badgeBackgroundSelected, backgroundDrawable, backgroundDrawableSelected;
+    //Each view draws its own copies once a cross fade changes their alpha , see DrawableHolder.
+    private final DrawableHolder replaceDrawable = new DrawableHolder(), selectedDrawable = new DrawableHolder();
+    private final DrawableHolder badgeBackground = new DrawableHolder(), badgeBackgroundSelected = new DrawableHolder();
+    private final DrawableHolder backgroundDrawable = new DrawableHolder(), backgroundDrawableSelected = new DrawableHolder();
     private int orientation, drawableOrientation = DrawableOrientation.none;
     private int gravity, badgeGravity;
     private float paddingLeft = 0.0f, paddingTop = 0.0f, paddingRight = 0.0f, paddingBottom = 0.0f, minWidthOffset = 0f, minHeightOffset = 0f;
     private float drawablePadding = 0.0f;
     private String text, textSelected, badgeText;
+    //Numeric badge written by setBadgeCount , digits are kept in badgeChars instead of badgeText.
+    private static final char[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+    //A layer of a cross fade at this alpha or below can't be seen , it's not drawn.
+    private static final int INVISIBLE_ALPHA = 1;
+    private boolean isBadgeCount = false;
+    private int badgeCount = 0, badgeMaxCount = 99, badgeCharCount = 0;
+    private String badgeOverflowSuffix = "+";
+    private char[] badgeChars = new char[12];
+    private final float[] digitWidths = new float[DIGITS.length];
+    private float digitSuffixWidth;
+    private TextMeasureCache.PaintState digitTablePaint;
     private List<TextInfo> drawTextInfoList;
+    //Recycled line infos, reused by the next layout pass instead of allocating new ones.
+    private final List<TextInfo> textInfoPool = new ArrayList<>();
     private float textSize = dp2px(12);
     private int textColor = Color.GRAY, textColorSelect = -1;
     private float maxLength = -1, textLineSpacing = 0.1f;
     private int textGravity = TextGravity.left;
     private final float defaultTextSpacing = dp2px(10);
     private int maxTextLength = -1, maxLines = -1;
+    private int lineBreak = LineBreak.chars;
+    //Auto-size is off while the min is 0 , a max of 0 means 'textSize' and a step of 0 means 1px.
+    private float autoSizeMinTextSize = 0, autoSizeMaxTextSize = 0, autoSizeStep = 0;
+    private final AutoSizeCache.Key autoSizeKey = new AutoSizeCache.Key();
+    //The last layout set a fitted size , it's replaced by 'textSize' once auto-size is turned off.
+    private boolean autoSized = false;
     /**
      * default: the basic width and height affected by system attributes. layout: the actual measured width and height
      */
     private float defaultWidth;
     private float defaultHeight;
-    private PointF textStart, badgeTextStart;
-    private Rect drawableRect, badgeRect;
+    private final PointF textStart = new PointF(), badgeTextStart = new PointF(), measuredTextSize = new PointF();
+    private final Rect drawableRect = new Rect(), badgeRect = new Rect(), backgroundRect = new Rect();
+    //The badge is an overlay of the content , its offsets and the content size of the last layout decide if a badge change needs a relayout.
+    private final float[] badgeOffsets = new float[4], badgeOffsetsTemp = new float[4];
+    private float badgeContentWidth, badgeContentHeight;
+    private boolean badgeInParentOverlay = false;
+    private BadgeOverlayDrawable badgeOverlay;
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics(), badgeFontMetrics = new Paint.FontMetrics();
+    private final TextMeasureCache.Key measureKey = new TextMeasureCache.Key();
+    private PreparedContent preparedContent;
+    //The shared style this view was inflated or bound with , null if it's resolved from its own attributes.
+    private DrawableTextStyle style;
     private float minWidth;
     private float minHeight;
     private float layoutWidth;
@@ -86,13 +125,47 @@ public class DrawableTextView extends View {
     private int fontStyle = -1, badgeFontStyle = -1;
     private Paint textPaint;
     private Paint badgeTextPaint;
-    private final ArgbEvaluator evaluator = new ArgbEvaluator();
+    private final ColorBlender textColorBlender = new ColorBlender(), badgeTextColorBlender = new ColorBlender();
+    private int colorMode = ColorMode.gamma;
     private DrawableValueAnimator animator;
     private boolean isSelected = false;
     private boolean selectionAble = true;
     private BadgeClickListener badgeClickListener;
     private DrawableClickListener drawableClickListener;
-    private PointF onTouchDownPoint;
+    private final PointF onTouchDownPoint = new PointF();
+    private boolean isTouchDown = false;
+    //Additional drawables indexed by Orientation , placed around the text and the drawable at 'orientation'.
+    private final DrawableSlot[] compoundDrawables = new DrawableSlot[4];
+    private boolean hasCompoundDrawables = false;
+    //Drawables are replaced by bitmaps of their drawn size at layout , the resource ids from xml let the originals be released.
+    private boolean prescaleDrawables = false;
+    //0 keeps the colors of the drawables.
+    private int drawableTint = 0, drawableTintSelected = 0;
+    private int replaceDrawableRes, selectedDrawableRes;
+    //The recorded output of each selected state , a transition blends the two records. Any change except the selection bumps the version.
+    private boolean layerCacheEnabled = false;
+    private StateLayers stateLayers;
+    private int layerVersion = 0;
+    private CompoundDrawableClickListener compoundDrawableClickListener;
+    //The layout snapshot is only rebuilt when one of its inputs changed, animation frames just redraw it.
+    private boolean layoutDirty = true;
+    private final TextMeasureCache.PaintState snapshotText = new TextMeasureCache.PaintState(), snapshotBadgeText = new TextMeasureCache.PaintState();
+    //Setters called between beginUpdate and endUpdate only record what is needed , it's dispatched once by the outermost endUpdate.
+    private int updateDepth = 0;
+    private boolean pendingLayout = false, pendingInvalidate = false;
+    //A layout input changed while attached , the new layout size is compared with the measured one right before the next frame is drawn.
+    private boolean pendingSizeCheck = false;
+    private float measuredLayoutWidth, measuredLayoutHeight;
+    private final ViewTreeObserver.OnPreDrawListener sizeCheck = () -> {
+        if (!pendingSizeCheck) return true;
+        pendingSizeCheck = false;
+        if (textPaint == null) return true;
+        calculationAll();
+        if (layoutWidth == measuredLayoutWidth && layoutHeight == measuredLayoutHeight) return true;
+        //Cancelling would drop the frame of the whole window , this frame is drawn with the old size and the next traversal applies the new one.
+        requestLayout();
+        return true;
+    };
 
     @Override
     public boolean isSelected() {
@@ -108,7 +181,8 @@ public class DrawableTextView extends View {
         } else {
             animator.start(isSelected());
         }
-        refreshAndValidate();
+        //The records of both states are still what they look like , only the layout is refreshed.
+        refreshLayout();
     }
 
     @Target(ElementType.PARAMETER)
@@ -135,6 +209,25 @@ public class DrawableTextView extends View {
         int right = 4;
     }
 
+    /**
+     * Where a line may break when the text exceeds 'maxLength' / 'maxTextLength' , a grapheme cluster is never split.
+     */
+    @Target(ElementType.PARAMETER)
+    public @interface LineBreak {
+        int chars = 0;
+        int words = 1;
+    }
+
+    /**
+     * How the colors are blended during a selection transition , gamma is the same as ArgbEvaluator.
+     */
+    @Target(ElementType.PARAMETER)
+    public @interface ColorMode {
+        int gamma = 0;
+        int srgb = 1;
+        int linear = 2;
+    }
+
     @Target(ElementType.PARAMETER)
     public @interface Gravity {
         int left = 0x0002;
@@ -158,66 +251,43 @@ public class DrawableTextView extends View {
         initData();
     }
 
+    /**
+     * The fast path for views created in code , nothing is parsed and the view is configured by the style once.
+     *
+     * @see DrawableTextStyle.Builder
+     */
+    public DrawableTextView(Context context, DrawableTextStyle style) {
+        super(context);
+        applyStyle(style);
+        initData();
+    }
+
     private void initAttrs(Context context, AttributeSet attrs) {
         if (attrs != null) {
-            TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.DrawableTextView);
+            int sharedStyle = getSharedStyle(attrs);
+            //Style attributes next to a shared style override it , the view then resolves its own style with the shared one as the default.
+            boolean merged = sharedStyle != 0 && hasStyleAttributes(attrs);
+            boolean shared = sharedStyle != 0 && !merged;
+            //A shared style alone replaces the per view attributes , only the content is read from the xml then.
+            TypedArray ta = shared ? context.obtainStyledAttributes(attrs, R.styleable.DrawableTextViewContent) : context.obtainStyledAttributes(attrs, R.styleable.DrawableTextView, 0, merged ? sharedStyle : 0);
             try {
-                selectionAble = ta.getBoolean(R.styleable.DrawableTextView_dtv_selectionAble, true);
-                minWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_viewWidth, 0f);
-                minHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_viewHeight, 0f);
-                drawableWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_drawableWidth, 0f);
-                drawableHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_drawableHeight, 0f);
-                float padding = ta.getDimension(R.styleable.DrawableTextView_dtv_padding, 0f);
-                paddingLeft = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingLeft, padding);
-                paddingRight = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingRight, padding);
-                paddingBottom = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingBottom, padding);
-                paddingTop = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingTop, padding);
-                drawablePadding = ta.getDimension(R.styleable.DrawableTextView_dtv_drawablePadding, drawablePadding);
-                replaceDrawable = ta.getDrawable(R.styleable.DrawableTextView_dtv_replaceDrawable);
-                selectedDrawable = ta.getDrawable(R.styleable.DrawableTextView_dtv_selectedDrawable);
-                backgroundDrawable = ta.getDrawable(R.styleable.DrawableTextView_dtv_background);
-                drawableOrientation = ta.getInt(R.styleable.DrawableTextView_dtv_drawableOrientation, DrawableOrientation.none);
-                backgroundDrawableSelected = ta.getDrawable(R.styleable.DrawableTextView_dtv_backgroundSelected);
-                text = ta.getString(R.styleable.DrawableTextView_dtv_text);
-                textSelected = ta.getString(R.styleable.DrawableTextView_dtv_textSelected);
-                textSize = ta.getDimension(R.styleable.DrawableTextView_dtv_textSize, textSize);
-                textColor = ta.getColor(R.styleable.DrawableTextView_dtv_textColor, textColor);
-                textColorSelect = ta.getColor(R.styleable.DrawableTextView_dtv_textColorSelect, textColorSelect);
-                textLineSpacing = ta.getDimension(R.styleable.DrawableTextView_dtv_textLineSpacing, .1f);
-                textGravity = ta.getInt(R.styleable.DrawableTextView_dtv_textGravity, TextGravity.center);
-                maxLines = ta.getInt(R.styleable.DrawableTextView_dtv_maxLine, Integer.MAX_VALUE);
-                maxLength = ta.getDimension(R.styleable.DrawableTextView_dtv_maxLength, -1f);
-                maxTextLength = ta.getInt(R.styleable.DrawableTextView_dtv_maxTextLength, -1);
-                orientation = ta.getInt(R.styleable.DrawableTextView_dtv_orientation, Orientation.left);
-                animDuration = ta.getInt(R.styleable.DrawableTextView_dtv_animDuration, 0);
-                gravity = ta.getInt(R.styleable.DrawableTextView_dtv_gravity, Gravity.center);
-                badgeEnable = ta.getBoolean(R.styleable.DrawableTextView_dtv_badgeEnable, badgeEnable);
-                boolean clearTextIfEmpty = ta.getBoolean(R.styleable.DrawableTextView_dtv_clearTextIfEmpty, false);
-                boolean selected = ta.getBoolean(R.styleable.DrawableTextView_dtv_select, isSelected);
-                fontPath = ta.getString(R.styleable.DrawableTextView_dtv_textFontPath);
-                fontStyle = ta.getInt(R.styleable.DrawableTextView_dtv_textStyle, -1);
-                badgeFontPath = ta.getString(R.styleable.DrawableTextView_dtv_badgeTextFontPath);
-                badgeFontStyle = ta.getInt(R.styleable.DrawableTextView_dtv_badgeTextStyle, -1);
-                if (badgeEnable) {
-                    badgeText = ta.getString(R.styleable.DrawableTextView_dtv_badgeText);
-                    badgeBackground = ta.getDrawable(R.styleable.DrawableTextView_dtv_badgeBackground);
-                    badgeBackgroundSelected = ta.getDrawable(R.styleable.DrawableTextView_dtv_badgeBackgroundSelected);
-                    badgeTextColor = ta.getColor(R.styleable.DrawableTextView_dtv_badgeTextColor, badgeTextColor);
-                    badgeTextColorSelected = ta.getColor(R.styleable.DrawableTextView_dtv_badgeTextColorSelected, badgeTextColorSelected);
-                    badgeTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeTextSize, badgeTextSize);
-                    badgePadding = ta.getDimension(R.styleable.DrawableTextView_dtv_badgePadding, badgePadding);
-                    badgeGravity = ta.getInt(R.styleable.DrawableTextView_dtv_badgeInGravity, Gravity.center);
-                    float badgeMargin = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMargin, 0f);
-                    badgeMinWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMinWidth, 0f);
-                    badgeMinHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMinHeight, 0f);
-                    badgeMarginStart = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginStart, badgeMargin);
-                    badgeMarginEnd = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginEnd, badgeMargin);
-                    badgeMarginTop = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginTop, badgeMargin);
-                    badgeMarginBottom = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginBottom, badgeMargin);
+                boolean clearTextIfEmpty, selected;
+                if (shared) {
+                    applyStyle(DrawableTextStyle.get(context, sharedStyle));
+                    text = ta.getString(R.styleable.DrawableTextViewContent_dtv_text);
+                    textSelected = ta.getString(R.styleable.DrawableTextViewContent_dtv_textSelected);
+                    clearTextIfEmpty = ta.getBoolean(R.styleable.DrawableTextViewContent_dtv_clearTextIfEmpty, false);
+                    selected = ta.getBoolean(R.styleable.DrawableTextViewContent_dtv_select, isSelected);
+                    if (badgeEnable) badgeText = ta.getString(R.styleable.DrawableTextViewContent_dtv_badgeText);
+                } else {
+                    applyAttributes(context, ta);
+                    text = ta.getString(R.styleable.DrawableTextView_dtv_text);
+                    textSelected = ta.getString(R.styleable.DrawableTextView_dtv_textSelected);
+                    clearTextIfEmpty = ta.getBoolean(R.styleable.DrawableTextView_dtv_clearTextIfEmpty, false);
+                    selected = ta.getBoolean(R.styleable.DrawableTextView_dtv_select, isSelected);
+                    if (badgeEnable) badgeText = ta.getString(R.styleable.DrawableTextView_dtv_badgeText);
                 }
                 if (!clearTextIfEmpty && TextUtils.isEmpty(textSelected)) textSelected = TextUtils.isEmpty(text) ? text = "" : text;
-                if (textColorSelect == -1) textColorSelect = textColor;
-                if (badgeTextColorSelected == -1) badgeTextColorSelected = badgeTextColor;
                 setSelected(selected);
             } catch (Exception e) {
                 e.printStackTrace();
@@ -227,78 +297,284 @@ public class DrawableTextView extends View {
         }
     }
 
-    @SuppressLint("WrongConstant")
+    //Found by the attribute id , so it's read without resolving a TypedArray.
+    private static int getSharedStyle(AttributeSet attrs) {
+        for (int i = 0; i < attrs.getAttributeCount(); i++) {
+            if (attrs.getAttributeNameResource(i) == R.attr.dtv_sharedStyle) return attrs.getAttributeResourceValue(i, 0);
+        }
+        return 0;
+    }
+
+    //Any attribute of the view besides the content and the shared style itself.
+    private static boolean hasStyleAttributes(AttributeSet attrs) {
+        for (int i = 0; i < attrs.getAttributeCount(); i++) {
+            int attr = attrs.getAttributeNameResource(i);
+            if (attr == R.attr.dtv_sharedStyle || contains(R.styleable.DrawableTextViewContent, attr)) continue;
+            if (contains(R.styleable.DrawableTextView, attr)) return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] styleable, int attr) {
+        for (int a : styleable) {
+            if (a == attr) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The same values as {@link DrawableTextStyle.Builder} reads from xml , set on this view directly so an inflated view without a shared style
+     * doesn't build a builder and a style only to copy them.
+     */
+    private void applyAttributes(Context context, TypedArray ta) {
+        style = null;
+        selectionAble = ta.getBoolean(R.styleable.DrawableTextView_dtv_selectionAble, true);
+        minWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_viewWidth, 0f);
+        minHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_viewHeight, 0f);
+        drawableWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_drawableWidth, 0f);
+        drawableHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_drawableHeight, 0f);
+        float padding = ta.getDimension(R.styleable.DrawableTextView_dtv_padding, 0f);
+        paddingLeft = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingLeft, padding);
+        paddingRight = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingRight, padding);
+        paddingBottom = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingBottom, padding);
+        paddingTop = ta.getDimension(R.styleable.DrawableTextView_dtv_paddingTop, padding);
+        drawablePadding = ta.getDimension(R.styleable.DrawableTextView_dtv_drawablePadding, 0f);
+        replaceDrawable.set(ta.getDrawable(R.styleable.DrawableTextView_dtv_replaceDrawable));
+        selectedDrawable.set(ta.getDrawable(R.styleable.DrawableTextView_dtv_selectedDrawable));
+        replaceDrawableRes = ta.getResourceId(R.styleable.DrawableTextView_dtv_replaceDrawable, 0);
+        selectedDrawableRes = ta.getResourceId(R.styleable.DrawableTextView_dtv_selectedDrawable, 0);
+        prescaleDrawables = ta.getBoolean(R.styleable.DrawableTextView_dtv_prescaleDrawables, false);
+        layerCacheEnabled = ta.getBoolean(R.styleable.DrawableTextView_dtv_layerCache, false);
+        drawableTint = ta.getColor(R.styleable.DrawableTextView_dtv_drawableTint, 0);
+        drawableTintSelected = ta.getColor(R.styleable.DrawableTextView_dtv_drawableTintSelected, 0);
+        if (drawableTintSelected == 0) drawableTintSelected = drawableTint;
+        applyDrawableTints();
+        backgroundDrawable.set(ta.getDrawable(R.styleable.DrawableTextView_dtv_background));
+        backgroundDrawableSelected.set(ta.getDrawable(R.styleable.DrawableTextView_dtv_backgroundSelected));
+        drawableOrientation = ta.getInt(R.styleable.DrawableTextView_dtv_drawableOrientation, DrawableOrientation.none);
+        initCompoundDrawables(ta);
+        textSize = ta.getDimension(R.styleable.DrawableTextView_dtv_textSize, context.getResources().getDisplayMetrics().density * 12);
+        textColor = ta.getColor(R.styleable.DrawableTextView_dtv_textColor, Color.GRAY);
+        textColorSelect = ta.getColor(R.styleable.DrawableTextView_dtv_textColorSelect, -1);
+        if (textColorSelect == -1) textColorSelect = textColor;
+        textLineSpacing = ta.getDimension(R.styleable.DrawableTextView_dtv_textLineSpacing, .1f);
+        textGravity = ta.getInt(R.styleable.DrawableTextView_dtv_textGravity, TextGravity.center);
+        maxLines = ta.getInt(R.styleable.DrawableTextView_dtv_maxLine, Integer.MAX_VALUE);
+        maxLength = ta.getDimension(R.styleable.DrawableTextView_dtv_maxLength, -1f);
+        maxTextLength = ta.getInt(R.styleable.DrawableTextView_dtv_maxTextLength, -1);
+        lineBreak = ta.getInt(R.styleable.DrawableTextView_dtv_lineBreak, LineBreak.chars);
+        autoSizeMinTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_autoSizeMinTextSize, 0f);
+        autoSizeMaxTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_autoSizeMaxTextSize, 0f);
+        autoSizeStep = ta.getDimension(R.styleable.DrawableTextView_dtv_autoSizeStepGranularity, 0f);
+        orientation = ta.getInt(R.styleable.DrawableTextView_dtv_orientation, Orientation.left);
+        animDuration = ta.getInt(R.styleable.DrawableTextView_dtv_animDuration, 0);
+        colorMode = ta.getInt(R.styleable.DrawableTextView_dtv_colorMode, ColorMode.gamma);
+        gravity = ta.getInt(R.styleable.DrawableTextView_dtv_gravity, Gravity.center);
+        badgeEnable = ta.getBoolean(R.styleable.DrawableTextView_dtv_badgeEnable, false);
+        badgeInParentOverlay = ta.getBoolean(R.styleable.DrawableTextView_dtv_badgeInParentOverlay, false);
+        fontPath = ta.getString(R.styleable.DrawableTextView_dtv_textFontPath);
+        fontStyle = ta.getInt(R.styleable.DrawableTextView_dtv_textStyle, -1);
+        badgeFontPath = ta.getString(R.styleable.DrawableTextView_dtv_badgeTextFontPath);
+        badgeFontStyle = ta.getInt(R.styleable.DrawableTextView_dtv_badgeTextStyle, -1);
+        //Badge attributes only count if the badge is enabled , the same as a built style.
+        if (badgeEnable) {
+            badgeBackground.set(ta.getDrawable(R.styleable.DrawableTextView_dtv_badgeBackground));
+            badgeBackgroundSelected.set(ta.getDrawable(R.styleable.DrawableTextView_dtv_badgeBackgroundSelected));
+            badgeTextColor = ta.getColor(R.styleable.DrawableTextView_dtv_badgeTextColor, 0);
+            badgeTextColorSelected = ta.getColor(R.styleable.DrawableTextView_dtv_badgeTextColorSelected, Color.BLACK);
+            if (badgeTextColorSelected == -1) badgeTextColorSelected = badgeTextColor;
+            badgeTextSize = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeTextSize, 0f);
+            badgePadding = ta.getDimension(R.styleable.DrawableTextView_dtv_badgePadding, 0f);
+            badgeGravity = ta.getInt(R.styleable.DrawableTextView_dtv_badgeInGravity, Gravity.center);
+            float badgeMargin = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMargin, 0f);
+            badgeMinWidth = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMinWidth, 0f);
+            badgeMinHeight = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMinHeight, 0f);
+            badgeMarginStart = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginStart, badgeMargin);
+            badgeMarginEnd = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginEnd, badgeMargin);
+            badgeMarginTop = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginTop, badgeMargin);
+            badgeMarginBottom = ta.getDimension(R.styleable.DrawableTextView_dtv_badgeMarginBottom, badgeMargin);
+        } else {
+            badgeTextColorSelected = Color.BLACK;
+        }
+    }
+
+    private void initCompoundDrawables(TypedArray ta) {
+        final int[][] attrs = {
+                {R.styleable.DrawableTextView_dtv_compoundLeft, R.styleable.DrawableTextView_dtv_compoundLeftSelected, R.styleable.DrawableTextView_dtv_compoundLeftWidth, R.styleable.DrawableTextView_dtv_compoundLeftHeight, R.styleable.DrawableTextView_dtv_compoundLeftPadding},
+                {R.styleable.DrawableTextView_dtv_compoundTop, R.styleable.DrawableTextView_dtv_compoundTopSelected, R.styleable.DrawableTextView_dtv_compoundTopWidth, R.styleable.DrawableTextView_dtv_compoundTopHeight, R.styleable.DrawableTextView_dtv_compoundTopPadding},
+                {R.styleable.DrawableTextView_dtv_compoundRight, R.styleable.DrawableTextView_dtv_compoundRightSelected, R.styleable.DrawableTextView_dtv_compoundRightWidth, R.styleable.DrawableTextView_dtv_compoundRightHeight, R.styleable.DrawableTextView_dtv_compoundRightPadding},
+                {R.styleable.DrawableTextView_dtv_compoundBottom, R.styleable.DrawableTextView_dtv_compoundBottomSelected, R.styleable.DrawableTextView_dtv_compoundBottomWidth, R.styleable.DrawableTextView_dtv_compoundBottomHeight, R.styleable.DrawableTextView_dtv_compoundBottomPadding}};
+        hasCompoundDrawables = false;
+        for (int side = 0; side < attrs.length; side++) {
+            Drawable drawable = ta.getDrawable(attrs[side][0]);
+            Drawable selected = ta.getDrawable(attrs[side][1]);
+            if (drawable == null && selected == null) {
+                compoundDrawables[side] = null;
+                continue;
+            }
+            DrawableSlot slot = new DrawableSlot(drawable, selected == null ? drawable : selected, ta.getDimension(attrs[side][2], drawableWidth), ta.getDimension(attrs[side][3], drawableHeight), ta.getDimension(attrs[side][4], drawablePadding));
+            slot.drawableRes = ta.getResourceId(attrs[side][0], 0);
+            slot.selectedDrawableRes = selected == null ? slot.drawableRes : ta.getResourceId(attrs[side][1], 0);
+            compoundDrawables[side] = slot;
+            hasCompoundDrawables = true;
+        }
+    }
+
+    /**
+     * Copy the resolved style into this view , the paints / animator are left to the caller.
+     */
+    private void applyStyle(DrawableTextStyle style) {
+        Resources res = getResources();
+        this.style = style.isShared() ? style : null;
+        selectionAble = style.selectionAble;
+        minWidth = style.minWidth;
+        minHeight = style.minHeight;
+        drawableWidth = style.drawableWidth;
+        drawableHeight = style.drawableHeight;
+        paddingLeft = style.paddingLeft;
+        paddingTop = style.paddingTop;
+        paddingRight = style.paddingRight;
+        paddingBottom = style.paddingBottom;
+        drawablePadding = style.drawablePadding;
+        replaceDrawable.set(style.getReplaceDrawable(res));
+        selectedDrawable.set(style.getSelectedDrawable(res));
+        replaceDrawableRes = style.replaceDrawableRes;
+        selectedDrawableRes = style.selectedDrawableRes;
+        prescaleDrawables = style.prescaleDrawables;
+        layerCacheEnabled = style.layerCache;
+        drawableTint = style.drawableTint;
+        drawableTintSelected = style.drawableTintSelected;
+        applyDrawableTints();
+        backgroundDrawable.set(style.getBackgroundDrawable(res));
+        backgroundDrawableSelected.set(style.getBackgroundDrawableSelected(res));
+        drawableOrientation = style.drawableOrientation;
+        hasCompoundDrawables = false;
+        for (int side = 0; side < compoundDrawables.length; side++) {
+            if (!style.hasCompoundDrawable(side)) {
+                compoundDrawables[side] = null;
+                continue;
+            }
+            Drawable drawable = style.getCompoundDrawable(side, res);
+            Drawable selected = style.getCompoundDrawableSelected(side, res);
+            DrawableSlot slot = new DrawableSlot(drawable, selected == null ? drawable : selected, style.compoundWidths[side], style.compoundHeights[side], style.compoundPaddings[side]);
+            slot.drawableRes = style.compoundDrawableRes[side];
+            slot.selectedDrawableRes = style.compoundDrawableSelectedRes[side];
+            compoundDrawables[side] = slot;
+            hasCompoundDrawables = true;
+        }
+        textSize = style.textSize;
+        textColor = style.textColor;
+        textColorSelect = style.textColorSelect;
+        textLineSpacing = style.textLineSpacing;
+        textGravity = style.textGravity;
+        maxLines = style.maxLines;
+        maxLength = style.maxLength;
+        maxTextLength = style.maxTextLength;
+        autoSizeMinTextSize = style.autoSizeMinTextSize;
+        autoSizeMaxTextSize = style.autoSizeMaxTextSize;
+        autoSizeStep = style.autoSizeStep;
+        lineBreak = style.lineBreak;
+        orientation = style.orientation;
+        animDuration = style.animDuration;
+        colorMode = style.colorMode;
+        gravity = style.gravity;
+        badgeEnable = style.badgeEnable;
+        badgeInParentOverlay = style.badgeInParentOverlay;
+        fontPath = style.fontPath;
+        fontStyle = style.fontStyle;
+        badgeFontPath = style.badgeFontPath;
+        badgeFontStyle = style.badgeFontStyle;
+        badgeBackground.set(style.getBadgeBackground(res));
+        badgeBackgroundSelected.set(style.getBadgeBackgroundSelected(res));
+        badgeTextColor = style.badgeTextColor;
+        badgeTextColorSelected = style.badgeTextColorSelected;
+        badgeTextSize = style.badgeTextSize;
+        badgePadding = style.badgePadding;
+        badgeGravity = style.badgeGravity;
+        badgeMinWidth = style.badgeMinWidth;
+        badgeMinHeight = style.badgeMinHeight;
+        badgeMarginStart = style.badgeMarginStart;
+        badgeMarginEnd = style.badgeMarginEnd;
+        badgeMarginTop = style.badgeMarginTop;
+        badgeMarginBottom = style.badgeMarginBottom;
+    }
+
     private void initData() {
         textPaint = new Paint();
         drawTextInfoList = new ArrayList<>();
-        Typeface typeface = Typeface.DEFAULT;
-        if (!TextUtils.isEmpty(fontPath)) {
-            typeface = Typeface.createFromAsset(getContext().getAssets(), fontPath);
-        }
-        if (fontStyle >= 0) {
-            int fs;
-            switch (fontStyle) {
-                case Typeface.BOLD:
-                case Typeface.ITALIC:
-                case Typeface.NORMAL:
-                case Typeface.BOLD_ITALIC:
-                    fs = fontStyle;
-                    break;
-                default:
-                    throw new IllegalArgumentException("The font must follow the specified size and be in one of Typeface.BOLD, Typeface.ITALIC, Typeface.NORMAL, Typeface.BOLD_ITALIC");
-            }
-            typeface = Typeface.create(typeface, fs);
-        }
-        textPaint.setTypeface(typeface);
         textPaint.setAntiAlias(true);
-        textPaint.setTextSize(textSize);
         textPaint.setTextAlign(Paint.Align.CENTER);
+        initPaints();
+        initAnimator();
+        postInvalidate();
+    }
+
+    private void initPaints() {
+        textPaint.setTypeface(style != null ? style.typeface : TypefaceCache.get(getContext(), fontPath, fontStyle));
+        textPaint.setTextSize(textSize);
         if (badgeEnable) {
-            Typeface badgeTypeface = Typeface.DEFAULT;
-            if (!TextUtils.isEmpty(badgeFontPath)) {
-                badgeTypeface = Typeface.createFromAsset(getContext().getAssets(), badgeFontPath);
-            }
-            if (badgeFontStyle >= 0) {
-                int fs;
-                switch (badgeFontStyle) {
-                    case Typeface.BOLD:
-                    case Typeface.ITALIC:
-                    case Typeface.NORMAL:
-                    case Typeface.BOLD_ITALIC:
-                        fs = fontStyle;
-                        break;
-                    default:
-                        throw new IllegalArgumentException("The font must follow the specified size and be in one of Typeface.BOLD, Typeface.ITALIC, Typeface.NORMAL, Typeface.BOLD_ITALIC");
-                }
-                badgeTypeface = Typeface.create(typeface, fs);
+            if (badgeTextPaint == null) {
+                badgeTextPaint = new Paint();
+                badgeTextPaint.setAntiAlias(true);
+                badgeTextPaint.setTextAlign(Paint.Align.CENTER);
             }
-            badgeTextPaint = new Paint();
-            badgeTextPaint.setAntiAlias(true);
-            badgeTextPaint.setTypeface(badgeTypeface);
+            badgeTextPaint.setTypeface(style != null ? style.badgeTypeface : TypefaceCache.get(getContext(), badgeFontPath, badgeFontStyle));
             badgeTextPaint.setTextSize(badgeTextSize);
-            badgeTextPaint.setTextAlign(Paint.Align.CENTER);
         }
-        if (animDuration > 0) {
+    }
+
+    private void initAnimator() {
+        if (animDuration <= 0) {
+            if (animator != null) animator.end();
+            animator = null;
+            return;
+        }
+        if (animator == null) {
             animator = new DrawableValueAnimator();
-            animator.setDuration(animDuration);
+            animator.jumpTo(curAnimFraction);
             animator.setOnAnimListener(fraction -> {
                 DrawableTextView.this.curAnimFraction = fraction;
-                postInvalidate();
+                invalidate();
+                if (badgeOverlay != null) badgeOverlay.invalidateSelf();
             });
         }
-        postInvalidate();
+        animator.setDuration(animDuration);
     }
 
     private void calculationAll() {
+        boolean paintChanged = isPaintChanged();
+        if (!layoutDirty && !paintChanged) return;
+        if (paintChanged) layerVersion++;
+        layoutDirty = false;
         calculateViewDimension();
         calculateGravityBounds();
         calculateBadgeBounds();
+        drawableRect.offset((int) (contentRect.left + 0.5f), (int) (contentRect.top + 0.5f));
+        if (hasCompoundDrawables) for (DrawableSlot slot : compoundDrawables) {
+            if (slot != null) slot.rect.offset((int) (contentRect.left + 0.5f), (int) (contentRect.top + 0.5f));
+        }
+        if (prescaleDrawables) prescaleDrawables();
+        updateBadgeOverlayBounds();
+        snapshotText.set(textPaint);
+        if (badgeTextPaint != null) snapshotBadgeText.set(badgeTextPaint);
+    }
+
+    /**
+     * The paints are exposed by {@link #getTextPaint()} / {@link #getBadgeTextPaint()} and may be changed outside,
+     * so the values that affect the measurement are compared with the ones of the last layout snapshot.
+     */
+    private boolean isPaintChanged() {
+        if (!snapshotText.matches(textPaint)) return true;
+        return badgeTextPaint != null && !snapshotBadgeText.matches(badgeTextPaint);
     }
 
     private void calculateViewDimension() {
         float textWidth;
         float textHeight;
-        drawTextInfoList.clear();
+        recycleTextInfo();
+        //Turning auto-size off (e.g. by setMaxLength / setMaxTextLength) restores the text size , otherwise a size set on the paint is kept.
+        if (isAutoSize() || autoSized) textPaint.setTextSize(isAutoSize() ? fitTextSize() : textSize);
+        autoSized = isAutoSize();
         if ((!isSelected && TextUtils.isEmpty(text)) || (isSelected && TextUtils.isEmpty(textSelected))) {
             textWidth = 0;
             textHeight = 0;
@@ -310,7 +586,7 @@ public class DrawableTextView extends View {
         float viewHeight;
         float viewWidth;
         float drawableW = 0f, drawableH = 0f, drawableP = 0f;
-        if ((isSelected && selectedDrawable != null) || (!isSelected && replaceDrawable != null)) {
+        if ((isSelected && !selectedDrawable.isEmpty()) || (!isSelected && !replaceDrawable.isEmpty())) {
             drawableW = drawableWidth;
             drawableH = drawableHeight;
             drawableP = drawablePadding;
@@ -322,16 +598,35 @@ public class DrawableTextView extends View {
             viewHeight = Math.max(textHeight, drawableH);
             viewWidth = textWidth + drawableW + drawableP;
         }
-        for (TextInfo tInfo : drawTextInfoList) tInfo.update(textWidth, textHeight, viewWidth, textGravity, paddingLeft, orientation, textPaint);
-        final float badgeTextHalfHeight = !badgeEnable ? 0 : Math.max(badgeMinHeight, badgeTextPaint.getFontMetrics().descent - badgeTextPaint.getFontMetrics().ascent) / 2f;
-        final float badgeTextHalfWidth = !badgeEnable ? 0 : Math.max(badgeMinWidth, TextUtils.isEmpty(badgeText) ? 0 : badgeTextPaint.measureText(badgeText)) / 2f;
-        final boolean isAlignBottom = badgeEnable && (badgeGravity & Gravity.bottom) != 0;
-        final boolean isAlignRight = badgeEnable && (badgeGravity & Gravity.right) != 0;
-        final boolean isAlignCenter = badgeEnable && (badgeGravity & Gravity.center) != 0;
-        final float bml = !badgeEnable ? 0 : isAlignRight ? (badgeTextHalfWidth - badgeMarginStart > viewWidth ? badgeTextHalfWidth - badgeMarginStart - viewWidth : 0f) : (isAlignCenter || badgeMarginStart > 0 ? 0 : Math.abs(badgeMarginStart));
-        final float bmr = !badgeEnable ? 0 : isAlignRight ? (badgeMarginEnd < 0 ? 0 : badgeMarginEnd) : ((badgeMarginEnd + badgeTextHalfWidth > viewWidth && !isAlignCenter) ? badgeMarginEnd + badgeTextHalfWidth - viewWidth : 0f);
-        final float bmt = !badgeEnable ? 0 : isAlignBottom ? (badgeTextHalfHeight - badgeMarginTop > viewHeight ? badgeTextHalfHeight - badgeMarginTop - viewHeight : 0f) : (isAlignCenter || badgeMarginTop > 0 ? 0 : Math.abs(badgeMarginTop));
-        final float bmb = !badgeEnable ? 0 : isAlignBottom ? (badgeMarginBottom < 0 ? 0 : badgeMarginBottom) : ((badgeMarginBottom + badgeTextHalfHeight > viewHeight && !isAlignCenter) ? badgeMarginBottom + badgeTextHalfHeight - viewHeight : 0f);
+        textPaint.getFontMetrics(fontMetrics);
+        for (int i = 0; i < drawTextInfoList.size(); i++) drawTextInfoList.get(i).update(textWidth, textHeight, viewWidth, textGravity, paddingLeft, orientation, fontMetrics);
+        //The text and the drawable at 'orientation' form a block , the compound drawables are placed around it.
+        final float blockWidth = viewWidth, blockHeight = viewHeight;
+        float blockX = 0, blockY = 0;
+        if (hasCompoundDrawables) {
+            DrawableSlot left = compoundDrawables[Orientation.left], top = compoundDrawables[Orientation.top];
+            DrawableSlot right = compoundDrawables[Orientation.right], bottom = compoundDrawables[Orientation.bottom];
+            float leftW = DrawableSlot.width(left, isSelected) + DrawableSlot.padding(left, isSelected);
+            float rightW = DrawableSlot.width(right, isSelected) + DrawableSlot.padding(right, isSelected);
+            float topH = DrawableSlot.height(top, isSelected) + DrawableSlot.padding(top, isSelected);
+            float bottomH = DrawableSlot.height(bottom, isSelected) + DrawableSlot.padding(bottom, isSelected);
+            float midWidth = Math.max(blockWidth, Math.max(DrawableSlot.width(top, isSelected), DrawableSlot.width(bottom, isSelected)));
+            float midHeight = topH + blockHeight + bottomH;
+            viewWidth = leftW + midWidth + rightW;
+            viewHeight = Math.max(midHeight, Math.max(DrawableSlot.height(left, isSelected), DrawableSlot.height(right, isSelected)));
+            blockX = leftW + (midWidth - blockWidth) / 2f;
+            blockY = (viewHeight - midHeight) / 2f + topH;
+        }
+        if (badgeEnable) badgeTextPaint.getFontMetrics(badgeFontMetrics);
+        badgeContentWidth = viewWidth;
+        badgeContentHeight = viewHeight;
+        calculateBadgeOffsets(viewWidth, viewHeight, badgeOffsets);
+        final boolean isBadgeInLayout = isBadgeInLayout();
+        final boolean isAlignRight = isBadgeInLayout && (badgeGravity & Gravity.right) != 0;
+        final float bml = badgeOffsets[0];
+        final float bmt = badgeOffsets[1];
+        final float bmr = badgeOffsets[2];
+        final float bmb = badgeOffsets[3];
         if (bml * 2f + viewWidth < minWidth) {
             minWidthOffset = (minWidth - (bml * 2f + viewWidth)) / 2.0f;
         }
@@ -340,12 +635,12 @@ public class DrawableTextView extends View {
         }
 
         contentRect.set(bml, bmt, viewWidth + bml + minWidthOffset * 2.0f + paddingLeft + paddingRight, viewHeight + bmt + minHeightOffset * 2.0f + paddingTop + paddingBottom);
-        if (badgeEnable) {
+        if (isBadgeInLayout) {
             if (badgeMarginBottom > contentRect.height()) contentRect.offset(0, badgeMarginBottom - contentRect.height());
 
         }
 
-        if (badgeEnable && !isAlignRight && badgeMarginStart < 0) contentRect.left += badgeMarginStart;
+        if (isBadgeInLayout && !isAlignRight && badgeMarginStart < 0) contentRect.left += badgeMarginStart;
         layoutWidth = viewWidth + bml + bmr + minWidthOffset * 2f + paddingLeft + paddingRight;
         layoutHeight = viewHeight + bmt + bmb + minHeightOffset * 2f + paddingTop + paddingBottom;
         if (defaultWidth == 0) defaultWidth = layoutWidth;
@@ -355,24 +650,24 @@ public class DrawableTextView extends View {
         switch (orientation) {
             case Orientation.left:
                 drawableLeft = (int) (paddingLeft + bml + minWidthOffset);
-                drawableTop = (int) (viewHeight / 2.0f - drawableH / 2.0f + 0.5f + minHeightOffset + paddingTop);
+                drawableTop = (int) (blockHeight / 2.0f - drawableH / 2.0f + 0.5f + minHeightOffset + paddingTop);
                 drawableTop = (int) calculateHWithDrawableOrientation(drawableTop, textHeight, drawableH);
                 drawableRight = (int) (drawableLeft + drawableW);
                 drawableBottom = (int) (drawableTop + drawableH);
                 textX = drawableRight + drawableP;
-                textY = viewHeight / 2.0f + minHeightOffset + paddingTop;
+                textY = blockHeight / 2.0f + minHeightOffset + paddingTop;
                 break;
             case Orientation.right:
                 drawableLeft = (int) (paddingLeft + textWidth + drawableP + 0.5f + minWidthOffset + bml);
-                drawableTop = (int) (viewHeight / 2.0f - drawableH / 2.0f + 0.5f + minHeightOffset + paddingTop);
+                drawableTop = (int) (blockHeight / 2.0f - drawableH / 2.0f + 0.5f + minHeightOffset + paddingTop);
                 drawableTop = (int) calculateHWithDrawableOrientation(drawableTop, textHeight, drawableH);
                 drawableRight = (int) (drawableLeft + drawableW);
                 drawableBottom = (int) (drawableTop + drawableH);
                 textX = paddingLeft + minWidthOffset + bml;
-                textY = viewHeight / 2.0f + minHeightOffset + paddingTop;
+                textY = blockHeight / 2.0f + minHeightOffset + paddingTop;
                 break;
             case Orientation.top:
-                float dl = viewWidth / 2.0f - drawableW / 2.0f + 0.5f + minWidthOffset + bml + paddingLeft;
+                float dl = blockWidth / 2.0f - drawableW / 2.0f + 0.5f + minWidthOffset + bml + paddingLeft;
                 drawableLeft = (int) (calculateWWithDrawableOrientation(dl, textWidth, drawableW));
                 drawableTop = (int) (paddingTop + minHeightOffset);
                 drawableRight = (int) (drawableLeft + drawableW);
@@ -381,7 +676,7 @@ public class DrawableTextView extends View {
                 textY = drawableBottom + drawableP;
                 break;
             case Orientation.bottom:
-                float dl1 = viewWidth / 2.0f - drawableW / 2.0f + 0.5f + minWidthOffset + bml + paddingLeft;
+                float dl1 = blockWidth / 2.0f - drawableW / 2.0f + 0.5f + minWidthOffset + bml + paddingLeft;
                 drawableLeft = (int) (calculateWWithDrawableOrientation(dl1, textWidth, drawableW));
                 drawableTop = (int) (paddingTop + textHeight + drawableP + minHeightOffset);
                 drawableRight = (int) (drawableLeft + drawableW);
@@ -390,8 +685,52 @@ public class DrawableTextView extends View {
                 textY = paddingTop + minHeightOffset;
                 break;
         }
-        drawableRect = new Rect(drawableLeft, drawableTop, drawableRight, drawableBottom);
-        textStart = new PointF(textX, textY);
+        drawableRect.set(drawableLeft, drawableTop, drawableRight, drawableBottom);
+        drawableRect.offset((int) (blockX + 0.5f), (int) (blockY + 0.5f));
+        textStart.set(textX + blockX, textY + blockY);
+        calculateCompoundDrawableBounds(blockWidth, blockHeight, viewWidth, viewHeight, paddingLeft + bml + minWidthOffset, paddingTop + minHeightOffset);
+    }
+
+    /**
+     * The compound drawables are placed around the block of text and the drawable at 'orientation', left / right are vertically centered
+     * and top / bottom are horizontally centered in the content.
+     */
+    private void calculateCompoundDrawableBounds(float blockWidth, float blockHeight, float viewWidth, float viewHeight, float x, float y) {
+        if (!hasCompoundDrawables) return;
+        DrawableSlot left = compoundDrawables[Orientation.left], top = compoundDrawables[Orientation.top];
+        DrawableSlot right = compoundDrawables[Orientation.right], bottom = compoundDrawables[Orientation.bottom];
+        float midX = x + DrawableSlot.width(left, isSelected) + DrawableSlot.padding(left, isSelected);
+        float midWidth = viewWidth - (midX - x) - DrawableSlot.width(right, isSelected) - DrawableSlot.padding(right, isSelected);
+        float midTop = y + (viewHeight - (DrawableSlot.height(top, isSelected) + DrawableSlot.padding(top, isSelected) + blockHeight + DrawableSlot.padding(bottom, isSelected) + DrawableSlot.height(bottom, isSelected))) / 2f;
+        if (left != null) left.setBounds(x, y + (viewHeight - left.height) / 2f);
+        if (right != null) right.setBounds(x + viewWidth - right.width, y + (viewHeight - right.height) / 2f);
+        if (top != null) top.setBounds(midX + (midWidth - top.width) / 2f, midTop);
+        if (bottom != null) bottom.setBounds(midX + (midWidth - bottom.width) / 2f, midTop + DrawableSlot.height(top, isSelected) + DrawableSlot.padding(top, isSelected) + blockHeight + bottom.padding);
+    }
+
+    /**
+     * The space reserved around the content for the badge as left, top, right, bottom. Only the badge width depends on the badge text,
+     * so a text change that keeps these values just moves the badge and never affects the content layout.
+     */
+    private void calculateBadgeOffsets(float viewWidth, float viewHeight, float[] out) {
+        if (!isBadgeInLayout()) {
+            out[0] = out[1] = out[2] = out[3] = 0;
+            return;
+        }
+        final float badgeTextHalfHeight = Math.max(badgeMinHeight, badgeFontMetrics.descent - badgeFontMetrics.ascent) / 2f;
+        final float badgeTextHalfWidth = Math.max(badgeMinWidth, measureBadgeText()) / 2f;
+        final boolean isAlignBottom = (badgeGravity & Gravity.bottom) != 0;
+        final boolean isAlignRight = (badgeGravity & Gravity.right) != 0;
+        final boolean isAlignCenter = (badgeGravity & Gravity.center) != 0;
+        out[0] = isAlignRight ? (badgeTextHalfWidth - badgeMarginStart > viewWidth ? badgeTextHalfWidth - badgeMarginStart - viewWidth : 0f) : (isAlignCenter || badgeMarginStart > 0 ? 0 : Math.abs(badgeMarginStart));
+        out[1] = isAlignBottom ? (badgeTextHalfHeight - badgeMarginTop > viewHeight ? badgeTextHalfHeight - badgeMarginTop - viewHeight : 0f) : (isAlignCenter || badgeMarginTop > 0 ? 0 : Math.abs(badgeMarginTop));
+        out[2] = isAlignRight ? (badgeMarginEnd < 0 ? 0 : badgeMarginEnd) : ((badgeMarginEnd + badgeTextHalfWidth > viewWidth && !isAlignCenter) ? badgeMarginEnd + badgeTextHalfWidth - viewWidth : 0f);
+        out[3] = isAlignBottom ? (badgeMarginBottom < 0 ? 0 : badgeMarginBottom) : ((badgeMarginBottom + badgeTextHalfHeight > viewHeight && !isAlignCenter) ? badgeMarginBottom + badgeTextHalfHeight - viewHeight : 0f);
+    }
+
+    //In the parent overlay mode the badge is drawn outside of the bounds of this view if needed, so no space is reserved for it.
+    private boolean isBadgeInLayout() {
+        return badgeEnable && !badgeInParentOverlay;
     }
 
     private float calculateHWithDrawableOrientation(float drawableTop, float textHeight, float drawableH) {
@@ -454,10 +793,11 @@ public class DrawableTextView extends View {
     }
 
     private void calculateBadgeBounds() {
+        badgeRect.setEmpty();
         if (!badgeEnable) return;
-        Paint.FontMetrics metrics = badgeTextPaint.getFontMetrics();
+        Paint.FontMetrics metrics = badgeFontMetrics;
         final float textHeight = metrics.descent - metrics.ascent;
-        final float textWidth = TextUtils.isEmpty(badgeText) ? 0 : badgeTextPaint.measureText(badgeText);
+        final float textWidth = measureBadgeText();
         float badgeWidth = Math.max(badgeMinWidth, textWidth) + badgePadding * 2f;
         float badgeHeight = Math.max(badgeMinHeight, textHeight) + badgePadding * 2f;
         float left = 0, top = 0;
@@ -507,106 +847,253 @@ public class DrawableTextView extends View {
             int r = (int) (left + badgeWidth + 0.5f + contentRect.left);
             int t = (int) (top + 0.5f + offsetY);
             int b = (int) (top + badgeHeight + 0.5f + offsetY);
-            badgeRect = new Rect(l, t, r, b);
+            badgeRect.set(l, t, r, b);
             float textX = badgeRect.centerX();
-            Paint.FontMetrics m = badgeTextPaint.getFontMetrics();
-            float textY = badgeRect.centerY() - (m.bottom - m.top) / 2f - m.top;
-            badgeTextStart = new PointF(textX, textY);
+            float textY = badgeRect.centerY() - (metrics.bottom - metrics.top) / 2f - metrics.top;
+            badgeTextStart.set(textX, textY);
         }
     }
 
     private PointF measureTextSize(String s) {
         if (TextUtils.isEmpty(s)) {
-            return new PointF(0f, 0f);
-        } else {
-            Paint.FontMetrics metrics = textPaint.getFontMetrics();
-            float sth = metrics.descent - metrics.ascent;
-            float textLen = textPaint.measureText(s);
-            float textWidth;
-            int lines;
-            if ((maxLength <= 0 && maxTextLength <= 0) || (maxTextLength > 0 && maxLength <= 0 && s.length() <= maxTextLength) || (maxTextLength <= 0 && textLen <= maxLength)) {
-                float ty = sth / 2f;
-                TextInfo ti = new TextInfo(s, ty, textLen, textPaint);
-                drawTextInfoList.add(ti);
-                return new PointF(textLen, sth);
-            } else if (maxLength > 0 && maxTextLength > 0) {
-                throw new IllegalArgumentException("unsupported to set both of 'maxLength' and 'maxTextLength' , Because the priority cannot be determined in different environments.");
-            } else {
-                int countOfLines;
-                if (maxTextLength > 0) {
-                    textWidth = textPaint.measureText(s.substring(0, maxTextLength));
-                    lines = (int) (Math.ceil(s.length() * 1.0f / maxTextLength));
-                    countOfLines = maxTextLength;
-                } else {
-                    textWidth = maxLength;
-                    lines = (int) (Math.ceil(textLen / maxLength));
-                    countOfLines = textPaint.breakText(s, false, maxLength, null);
-                }
-                boolean isOverLine = lines > maxLines;
-                lines = Math.min(lines, maxLines);
-                int lc = lines * countOfLines - ((isOverLine) ? ellipse.length() : 0);
-                String breakText = (lc >= s.length()) ? s : s.substring(0, lc) + ellipse;
-                float textHeight = sth;
-                for (int i = 0; i < lines; i++) {
-                    if (TextUtils.isEmpty(breakText)) break;
-                    assert breakText != null;
-                    String singleLineText = (countOfLines >= breakText.length()) ? breakText : breakText.substring(0, countOfLines);
-                    textHeight = sth * i + textLineSpacing * defaultTextSpacing * Math.max(0, i - 1) + sth / 2f;
-                    TextInfo ti = new TextInfo(singleLineText, textHeight, textWidth, textPaint);
-                    textWidth = Math.max(textWidth, ti.textWidth);
-                    drawTextInfoList.add(ti);
-                    breakText = (countOfLines >= breakText.length()) ? null : breakText.substring(countOfLines);
-                }
-                return new PointF(textWidth, textHeight + sth / 2f);
-            }
+            measuredTextSize.set(0f, 0f);
+            return measuredTextSize;
+        }
+        Paint.FontMetrics metrics = fontMetrics;
+        textPaint.getFontMetrics(metrics);
+        float sth = metrics.descent - metrics.ascent;
+        TextMeasureCache.Measurement m = measure(textPaint, s, maxLength, maxTextLength, lineLimit(), lineBreak);
+        float textHeight = sth / 2f;
+        for (int i = 0; i < m.getLineCount(); i++) {
+            textHeight = sth * i + textLineSpacing * defaultTextSpacing * Math.max(0, i - 1) + sth / 2f;
+            drawTextInfoList.add(obtainTextInfo().set(m.getLineText(i), m.lineStarts[i], m.lineEnds[i], textHeight, m.lineWidths[i], metrics));
         }
+        measuredTextSize.set(m.width, textHeight + sth / 2f);
+        return measuredTextSize;
+    }
+
+    private boolean isAutoSize() {
+        return autoSizeMinTextSize > 0 && maxLength > 0 && maxTextLength <= 0;
+    }
+
+    //An auto-sized text without a line limit would only wrap and never shrink , it's kept to a single line then.
+    private int lineLimit() {
+        return isAutoSize() && (maxLines <= 0 || maxLines == Integer.MAX_VALUE) ? 1 : maxLines;
+    }
+
+    //The smaller fit of both texts , so the text size doesn't jump on a selection change.
+    private float fitTextSize() {
+        float max = autoSizeMaxTextSize > 0 ? autoSizeMaxTextSize : textSize;
+        float min = Math.min(autoSizeMinTextSize, max);
+        float step = autoSizeStep > 0 ? autoSizeStep : 1f;
+        float size = max;
+        if (!TextUtils.isEmpty(text)) {
+            size = AutoSizeCache.fit(textPaint, text, maxLength, lineLimit(), lineBreak, min, max, step, autoSizeKey);
+        }
+        if (!TextUtils.isEmpty(textSelected) && !textSelected.equals(text)) {
+            size = Math.min(size, AutoSizeCache.fit(textPaint, textSelected, maxLength, lineLimit(), lineBreak, min, max, step, autoSizeKey));
+        }
+        return size;
+    }
+
+    private float measureBadgeText() {
+        if (isBadgeCount) return measureBadgeCount(badgeCharCount, badgeCount > badgeMaxCount);
+        if (TextUtils.isEmpty(badgeText)) return 0;
+        return measure(badgeTextPaint, badgeText, -1, -1, -1, LineBreak.chars).width;
+    }
+
+    private boolean hasBadgeText() {
+        return isBadgeCount ? badgeCharCount > 0 : !TextUtils.isEmpty(badgeText);
+    }
+
+    /**
+     * The width of a count is the sum of the digit advances , the table is rebuilt only if a measurement related value of the badge paint changed.
+     */
+    private float measureBadgeCount(int charCount, boolean isOverflow) {
+        if (charCount <= 0) return 0;
+        if (digitTablePaint == null || !digitTablePaint.matches(badgeTextPaint)) {
+            for (int i = 0; i < DIGITS.length; i++) digitWidths[i] = badgeTextPaint.measureText(DIGITS, i, 1);
+            digitSuffixWidth = TextUtils.isEmpty(badgeOverflowSuffix) ? 0 : badgeTextPaint.measureText(badgeOverflowSuffix);
+            if (digitTablePaint == null) digitTablePaint = new TextMeasureCache.PaintState();
+            digitTablePaint.set(badgeTextPaint);
+        }
+        float width = isOverflow ? digitSuffixWidth : 0;
+        int digits = charCount - (isOverflow ? badgeOverflowSuffix.length() : 0);
+        for (int i = 0; i < digits; i++) width += digitWidths[badgeChars[i] - '0'];
+        return width;
+    }
+
+    private int writeBadgeCount(int count) {
+        if (count <= 0) return 0;
+        boolean isOverflow = count > badgeMaxCount;
+        int value = isOverflow ? badgeMaxCount : count;
+        int digits = 0;
+        for (int v = value; v > 0; v /= 10) digits++;
+        int suffixLength = isOverflow ? badgeOverflowSuffix.length() : 0;
+        if (badgeChars.length < digits + suffixLength) badgeChars = new char[digits + suffixLength];
+        for (int i = digits - 1; i >= 0; i--, value /= 10) badgeChars[i] = DIGITS[value % 10];
+        if (isOverflow) badgeOverflowSuffix.getChars(0, suffixLength, badgeChars, digits);
+        return digits + suffixLength;
+    }
+
+    private TextMeasureCache.Measurement measure(Paint paint, String s, float maxLength, int maxTextLength, int maxLines, int lineBreak) {
+        TextMeasureCache.Measurement m = preparedContent == null ? null : preparedContent.find(paint, s, maxLength, maxTextLength, maxLines, lineBreak);
+        return m != null ? m : TextMeasureCache.measure(paint, s, maxLength, maxTextLength, maxLines, lineBreak, measureKey);
+    }
+
+    private TextInfo obtainTextInfo() {
+        int size = textInfoPool.size();
+        return size > 0 ? textInfoPool.remove(size - 1) : new TextInfo();
+    }
+
+    private void recycleTextInfo() {
+        for (int i = 0; i < drawTextInfoList.size(); i++) textInfoPool.add(drawTextInfoList.get(i).recycle());
+        drawTextInfoList.clear();
     }
 
     private float curAnimFraction;
+    //The draw calls issued by the last frame , see getDrawOpCount().
+    private int drawOpCount;
 
     @Override
     protected void onDraw(Canvas canvas) {
+        drawOpCount = 0;
         canvas.save();
         calculationAll();
+        if (!drawLayers(canvas)) drawContent(canvas);
+        canvas.restore();
+    }
+
+    //Not clipped to the content rect , italic overhangs and shadows of the text may draw outside of it.
+    //The drawables scrolled out are still rejected by the clip of the parent before they are drawn.
+    private void drawContent(Canvas canvas) {
         drawBackground(canvas);
         drawText(canvas);
         drawDrawable(canvas);
-        drawBadge(canvas);
-        canvas.restore();
+        if (badgeOverlay == null) drawBadge(canvas);
+    }
+
+    /**
+     * Draw the recorded states instead of the elements , a transition only changes the alpha of the two records.
+     *
+     * @return false if the records can't be used for this frame , the elements are drawn then.
+     */
+    private boolean drawLayers(Canvas canvas) {
+        if (!layerCacheEnabled || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || !canvas.isHardwareAccelerated()) return false;
+        if (stateLayers == null) stateLayers = new StateLayers();
+        int target = isSelected ? 1 : 0;
+        if (!stateLayers.isValid(target, layerVersion)) recordLayer(target);
+        float targetAlpha = isSelected ? curAnimFraction : 1f - curAnimFraction;
+        if (targetAlpha >= 1f) {
+            stateLayers.draw(canvas, target, 1f);
+            drawOpCount++;
+            return true;
+        }
+        int source = 1 - target;
+        if (!stateLayers.isValid(source, layerVersion)) return false;
+        stateLayers.draw(canvas, source, 1f - targetAlpha);
+        stateLayers.draw(canvas, target, targetAlpha);
+        drawOpCount += 2;
+        return true;
+    }
+
+    //The layout is always the one of the current state , so only that state can be recorded.
+    @TargetApi(Build.VERSION_CODES.Q)
+    private void recordLayer(int state) {
+        float fraction = curAnimFraction;
+        curAnimFraction = state == 1 ? 1f : 0f;
+        Canvas c = stateLayers.begin(state, getWidth(), getHeight());
+        try {
+            drawContent(c);
+        } finally {
+            stateLayers.end(state, layerVersion);
+            curAnimFraction = fraction;
+        }
+    }
+
+    //Both states of a drawable share the bitmap of the same resource , so the cross fade can still tell that they are the same image.
+    private void prescaleDrawables() {
+        int w = drawableRect.width(), h = drawableRect.height();
+        prescale(replaceDrawable, replaceDrawableRes, w, h, drawableTint);
+        prescale(selectedDrawable, selectedDrawableRes, w, h, drawableTintSelected);
+        if (hasCompoundDrawables) for (DrawableSlot slot : compoundDrawables) {
+            if (slot == null) continue;
+            boolean same = slot.drawable.getSource() == slot.selectedDrawable.getSource();
+            slot.drawable.set(ScaledDrawableCache.get(getContext(), slot.drawableRes, slot.drawable.getSource(), slot.rect.width(), slot.rect.height(), 0));
+            slot.selectedDrawable.set(same ? slot.drawable.getSource() : ScaledDrawableCache.get(getContext(), slot.selectedDrawableRes, slot.selectedDrawable.getSource(), slot.rect.width(), slot.rect.height(), 0));
+        }
+    }
+
+    //A rasterized drawable already has the tint in its pixels , only the ones that can't be rasterized are tinted while drawing.
+    /**
+     * Draw every drawable from a private mutated copy , also the ones set later. Used by {@link DrawableTextRenderer} , its view draws on a
+     * worker thread while the views on the main thread may change the constant states it would share with them.
+     */
+    void isolateDrawables() {
+        replaceDrawable.isolate();
+        selectedDrawable.isolate();
+        backgroundDrawable.isolate();
+        backgroundDrawableSelected.isolate();
+        badgeBackground.isolate();
+        badgeBackgroundSelected.isolate();
+        for (DrawableSlot slot : compoundDrawables) {
+            if (slot == null) continue;
+            slot.drawable.isolate();
+            slot.selectedDrawable.isolate();
+        }
+    }
+
+    private void prescale(DrawableHolder holder, int resId, int w, int h, int tint) {
+        Drawable d = ScaledDrawableCache.get(getContext(), resId, holder.getSource(), w, h, tint);
+        holder.set(d);
+        holder.setTint(ScaledDrawableCache.isScaled(d) ? 0 : tint);
+    }
+
+    private void applyDrawableTints() {
+        replaceDrawable.setTint(drawableTint);
+        selectedDrawable.setTint(drawableTintSelected);
     }
 
     private void drawText(Canvas canvas) {
         if (drawTextInfoList == null || drawTextInfoList.isEmpty()) {
             return;
         }
-        int start = textColor;
-        int end = textColorSelect;
-        int evaTextColor = (int) evaluator.evaluate(curAnimFraction, textColor, textColorSelect);
-        textPaint.setColor(evaTextColor);
-        for (TextInfo info : drawTextInfoList) {
-            if (TextUtils.isEmpty(info.text)) continue;
-            canvas.drawText(info.text, info.textX + textStart.x + contentRect.left, textStart.y + contentRect.top + info.textY, textPaint);
+        textPaint.setColor(textColorBlender.evaluate(curAnimFraction, textColor, textColorSelect, colorMode));
+        for (int i = 0; i < drawTextInfoList.size(); i++) {
+            TextInfo info = drawTextInfoList.get(i);
+            if (info.start >= info.end) continue;
+            canvas.drawText(info.text, info.start, info.end, info.textX + textStart.x + contentRect.left, textStart.y + contentRect.top + info.textY, textPaint);
+            drawOpCount++;
         }
     }
 
     private void drawDrawable(Canvas canvas) {
-        drawableRect.offset((int) (contentRect.left + 0.5f), (int) (contentRect.top + 0.5f));
         drawDrawables(canvas, selectedDrawable, replaceDrawable, drawableRect, false);
+        if (hasCompoundDrawables) for (DrawableSlot slot : compoundDrawables) {
+            if (slot != null) drawDrawables(canvas, slot.selectedDrawable, slot.drawable, slot.rect, false);
+        }
     }
 
     private void drawBadge(Canvas canvas) {
-        if (!badgeEnable || badgeRect == null || TextUtils.isEmpty(badgeText)) return;
+        if (!badgeEnable || badgeRect.isEmpty() || !hasBadgeText()) return;
+        int count = canvas.save();
+        canvas.clipRect(badgeRect);
         drawDrawables(canvas, badgeBackgroundSelected, badgeBackground, badgeRect, true);
-        int evaTextColor = (int) evaluator.evaluate(curAnimFraction, badgeTextColor, badgeTextColorSelected);
-        badgeTextPaint.setColor(evaTextColor);
-        canvas.drawText(badgeText, badgeTextStart.x, badgeTextStart.y, badgeTextPaint);
+        badgeTextPaint.setColor(badgeTextColorBlender.evaluate(curAnimFraction, badgeTextColor, badgeTextColorSelected, colorMode));
+        if (isBadgeCount) {
+            canvas.drawText(badgeChars, 0, badgeCharCount, badgeTextStart.x, badgeTextStart.y, badgeTextPaint);
+        } else {
+            canvas.drawText(badgeText, badgeTextStart.x, badgeTextStart.y, badgeTextPaint);
+        }
+        drawOpCount++;
+        canvas.restoreToCount(count);
     }
 
     private void drawBackground(Canvas canvas) {
-        Rect r = new Rect();
+        Rect r = backgroundRect;
         contentRect.roundOut(r);
-        final boolean isAlignRight = badgeEnable && (badgeGravity & Gravity.right) != 0;
-        if (badgeEnable && !isAlignRight && badgeMarginStart < 0) r.left += (int) (Math.abs(badgeMarginStart + 0.5f));
+        final boolean isAlignRight = (badgeGravity & Gravity.right) != 0;
+        if (isBadgeInLayout() && !isAlignRight && badgeMarginStart < 0) r.left += (int) (Math.abs(badgeMarginStart + 0.5f));
         drawDrawables(canvas, backgroundDrawableSelected, backgroundDrawable, r, false);
     }
 
@@ -617,78 +1104,185 @@ public class DrawableTextView extends View {
      * the obtained Bitmap source file address (non-object address) is the same, Therefore need to make a judgment or copy a new cache.
      * example: ((BitmapDrawable) selectedDrawable).getBitmap() == ((BitmapDrawable) replaceDrawable).getBitmap()
      */
-    private void drawDrawables(Canvas canvas, Drawable select, Drawable replace, Rect rect, boolean drawAlways) {
+    private void drawDrawables(Canvas canvas, DrawableHolder select, DrawableHolder replace, Rect rect, boolean drawAlways) {
+        drawOpCount += drawCrossFade(canvas, select, replace, rect, curAnimFraction, isSelected, drawAlways);
+    }
+
+    //The edge type variant is deprecated since API 30 , both skip a rect entirely outside of the clip.
+    @SuppressWarnings("deprecation")
+    private static boolean quickReject(Canvas canvas, Rect rect) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) return canvas.quickReject(rect.left, rect.top, rect.right, rect.bottom);
+        return canvas.quickReject(rect.left, rect.top, rect.right, rect.bottom, Canvas.EdgeType.BW);
+    }
+
+    //Shared with DrawableTextGroup , draws a selected / unselected pair by the fraction of a transition.
+    //Layers that can't be seen are skipped: rejected by the clip or faded out below 1/255 , the other one is drawn alone at full alpha then.
+    //In between both are drawn , an opaque pair only keeps the one fading out at full alpha.
+    //Returns the number of drawables drawn.
+    static int drawCrossFade(Canvas canvas, DrawableHolder select, DrawableHolder replace, Rect rect, float fraction, boolean isSelected, boolean drawAlways) {
+        Drawable s = select == null ? null : select.get();
+        Drawable r = replace == null ? null : replace.get();
+        if (s == null && r == null) return 0;
+        if (quickReject(canvas, rect)) return 0;
+
+        //the same drawable for both states , there is nothing to cross fade unless they are tinted differently.
+        boolean sameTint = select == null || replace == null || select.getTint() == replace.getTint();
+        if (s != null && s == r && sameTint) {
+            select.draw(canvas, rect, 255);
+            return 1;
+        }
 
         //fixed v1.0.2
-        if (select instanceof BitmapDrawable && replace instanceof BitmapDrawable) {
-            if (((BitmapDrawable) select).getBitmap() == ((BitmapDrawable) replace).getBitmap()) {
-                drawDrawables(canvas, null, replace, rect, true);
-                return;
+        if (sameTint && s instanceof BitmapDrawable && r instanceof BitmapDrawable) {
+            if (((BitmapDrawable) s).getBitmap() == ((BitmapDrawable) r).getBitmap()) {
+                return drawCrossFade(canvas, null, replace, rect, fraction, isSelected, true);
             }
         }
 
-        if (select == null || replace == null) {
-            if (select != null) {
-                select.setBounds(rect);
-                select.setAlpha(255);
-                if (drawAlways || isSelected) select.draw(canvas);
+        //A drawable that isn't drawn keeps its alpha , so a hidden state never forces a private copy.
+        if (s == null || r == null) {
+            if (s != null && (drawAlways || isSelected)) {
+                select.draw(canvas, rect, 255);
+                return 1;
             }
-            if (replace != null) {
-                replace.setAlpha(255);
-                replace.setBounds(rect);
-                if (drawAlways || !isSelected) replace.draw(canvas);
+            if (r != null && (drawAlways || !isSelected)) {
+                replace.draw(canvas, rect, 255);
+                return 1;
             }
-            return;
-        }
-        replace.setBounds(rect);
-        select.setBounds(rect);
-        int curAlpha = (int) (curAnimFraction * 255f + 0.5f);
-        replace.setAlpha(255 - curAlpha);
-        select.setAlpha(curAlpha);
-        if (curAlpha > 0) {
-            select.draw(canvas);
+            return 0;
         }
-        if (curAlpha < 255) {
-            replace.draw(canvas);
+        int curAlpha = (int) (fraction * 255f + 0.5f);
+        if (curAlpha <= INVISIBLE_ALPHA) curAlpha = 0;
+        else if (curAlpha >= 255 - INVISIBLE_ALPHA) curAlpha = 255;
+        if (curAlpha == 0 || curAlpha == 255) {
+            (curAlpha == 0 ? replace : select).draw(canvas, rect, 255);
+            return 1;
         }
+        //Both opaque , the fading in one over the other at full alpha is the same blend and doesn't let the content below shine through.
+        boolean opaque = select.isOpaque() && replace.isOpaque();
+        replace.draw(canvas, rect, opaque ? 255 : 255 - curAlpha);
+        select.draw(canvas, rect, curAlpha);
+        return 2;
     }
 
+    /**
+     * @return the number of draw calls (drawables, texts, recorded layers) issued by the last frame of this view ,
+     * for checking the overdraw of a screen in debug builds.
+     */
+    public int getDrawOpCount() {
+        return drawOpCount;
+    }
+
+    /**
+     * The measured size only depends on the layout snapshot and the specs, so measuring is idempotent and never requests another layout pass.
+     * A changed host size only moves the content by gravity, which is applied by the next draw.
+     */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
         calculationAll();
-        float w, h;
-        int widthSpec = MeasureSpec.makeMeasureSpec(0, widthMeasureSpec);
-        int heightSpec = MeasureSpec.makeMeasureSpec(0, heightMeasureSpec);
-        if (widthSpec == MeasureSpec.EXACTLY) {
-            w = getMeasuredWidth();
-        } else {
-            w = Math.max(layoutWidth, defaultWidth);
-        }
-        if (heightSpec == MeasureSpec.EXACTLY) {
-            h = getMeasuredHeight();
-        } else {
-            h = Math.max(layoutHeight, defaultHeight);
-        }
-        if (w > 0 && h > 0) setMeasuredDimension((int) w, (int) h);
-        if (w != defaultWidth || h != defaultHeight) {
-            defaultWidth = w;
-            defaultHeight = h;
-            refreshAndValidate();
+        pendingSizeCheck = false;
+        measuredLayoutWidth = layoutWidth;
+        measuredLayoutHeight = layoutHeight;
+        int w = resolveSizeAndState((int) Math.ceil(layoutWidth), widthMeasureSpec, 0);
+        int h = resolveSizeAndState((int) Math.ceil(layoutHeight), heightMeasureSpec, 0);
+        setMeasuredDimension(w, h);
+        float mw = getMeasuredWidth(), mh = getMeasuredHeight();
+        if (mw != defaultWidth || mh != defaultHeight) {
+            defaultWidth = mw;
+            defaultHeight = mh;
+            layoutDirty = true;
         }
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnPreDrawListener(sizeCheck);
+        attachBadgeOverlay();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnPreDrawListener(sizeCheck);
+        pendingSizeCheck = false;
+        if (animator != null && animator.isRunning()) animator.end();
+        detachBadgeOverlay();
+        discardLayers();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        if (changed) updateBadgeOverlayBounds();
+    }
+
+    private void attachBadgeOverlay() {
+        if (!badgeInParentOverlay || !badgeEnable || badgeOverlay != null || !(getParent() instanceof ViewGroup)) return;
+        badgeOverlay = new BadgeOverlayDrawable();
+        ((ViewGroup) getParent()).getOverlay().add(badgeOverlay);
+        updateBadgeOverlayBounds();
+    }
+
+    private void detachBadgeOverlay() {
+        if (badgeOverlay == null) return;
+        if (getParent() instanceof ViewGroup) ((ViewGroup) getParent()).getOverlay().remove(badgeOverlay);
+        badgeOverlay = null;
+    }
+
+    private void updateBadgeOverlayBounds() {
+        if (badgeOverlay == null) return;
+        badgeOverlay.invalidateSelf();
+        int x = (int) getX(), y = (int) getY();
+        badgeOverlay.setBounds(badgeRect.left + x - 1, badgeRect.top + y - 1, badgeRect.right + x + 1, badgeRect.bottom + y + 1);
+        badgeOverlay.invalidateSelf();
+    }
+
+    //The overlay isn't drawn by this view , it follows the properties of the host that are set here (a ViewPropertyAnimator bypasses these setters).
+    @Override
+    public void setTranslationX(float translationX) {
+        super.setTranslationX(translationX);
+        updateBadgeOverlayBounds();
+    }
+
+    @Override
+    public void setTranslationY(float translationY) {
+        super.setTranslationY(translationY);
+        updateBadgeOverlayBounds();
+    }
+
+    @Override
+    public void setAlpha(float alpha) {
+        super.setAlpha(alpha);
+        if (badgeOverlay != null) badgeOverlay.invalidateSelf();
+    }
+
+    @Override
+    public void setVisibility(int visibility) {
+        super.setVisibility(visibility);
+        if (badgeOverlay != null) badgeOverlay.invalidateSelf();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutDirty = true;
+        layerVersion++;
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        if (badgeClickListener == null && drawableClickListener == null) return super.onTouchEvent(event);
+        if (badgeClickListener == null && drawableClickListener == null && compoundDrawableClickListener == null) return super.onTouchEvent(event);
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
-                onTouchDownPoint = new PointF(event.getX(), event.getY());
+                onTouchDownPoint.set(event.getX(), event.getY());
+                isTouchDown = true;
                 return true;
             case MotionEvent.ACTION_UP:
-                if (onTouchDownPoint == null) return super.onTouchEvent(event);
+                if (!isTouchDown) return super.onTouchEvent(event);
+                isTouchDown = false;
                 if (Math.abs(event.getX() - onTouchDownPoint.x) <= 30 && Math.abs(event.getY() - onTouchDownPoint.y) <= 30) {
-                    if (badgeClickListener != null && badgeRect != null && badgeRect.contains((int) onTouchDownPoint.x, (int) onTouchDownPoint.y)) {
+                    if (badgeClickListener != null && !badgeRect.isEmpty() && badgeRect.contains((int) onTouchDownPoint.x, (int) onTouchDownPoint.y)) {
                         badgeClickListener.onClick(this);
                         return true;
                     }
@@ -696,18 +1290,27 @@ public class DrawableTextView extends View {
                         drawableClickListener.onClick(this);
                         return true;
                     }
+                    if (compoundDrawableClickListener != null && hasCompoundDrawables) {
+                        for (int side = 0; side < compoundDrawables.length; side++) {
+                            DrawableSlot slot = compoundDrawables[side];
+                            if (slot != null && slot.current(isSelected) != null && slot.rect.contains((int) onTouchDownPoint.x, (int) onTouchDownPoint.y)) {
+                                compoundDrawableClickListener.onClick(this, side);
+                                return true;
+                            }
+                        }
+                    }
                 }
                 performClick();
                 return true;
             case MotionEvent.ACTION_MOVE:
-                if (Math.abs(event.getX() - onTouchDownPoint.x) > 30 || Math.abs(event.getY() - onTouchDownPoint.y) > 30) {
+                if (isTouchDown && (Math.abs(event.getX() - onTouchDownPoint.x) > 30 || Math.abs(event.getY() - onTouchDownPoint.y) > 30)) {
                     ViewParent vp = getParent();
                     if (vp != null) vp.requestDisallowInterceptTouchEvent(false);
                     return false;
                 }
                 break;
             case MotionEvent.ACTION_CANCEL:
-                onTouchDownPoint = null;
+                isTouchDown = false;
                 break;
         }
         return super.onTouchEvent(event);
@@ -718,7 +1321,7 @@ public class DrawableTextView extends View {
         return super.performClick();
     }
 
-    private interface OnAnimListener {
+    interface OnAnimListener {
         void onAnimFraction(float fraction);
     }
 
@@ -733,12 +1336,10 @@ public class DrawableTextView extends View {
     }
 
     public float getBadgeWidth() {
-        if (badgeRect == null) return 0;
         return badgeRect.width();
     }
 
     public float getBadgeHeight() {
-        if (badgeRect == null) return 0;
         return badgeRect.height();
     }
 
@@ -752,32 +1353,32 @@ public class DrawableTextView extends View {
 
 
     public Drawable getReplaceDrawable() {
-        return replaceDrawable;
+        return replaceDrawable.get();
     }
 
 
     public Drawable getSelectedDrawable() {
-        return selectedDrawable;
+        return selectedDrawable.get();
     }
 
 
     public Drawable getBadgeBackground() {
-        return badgeBackground;
+        return badgeBackground.get();
     }
 
 
     public Drawable getBadgeBackgroundSelected() {
-        return badgeBackgroundSelected;
+        return badgeBackgroundSelected.get();
     }
 
 
     public Drawable getBackgroundDrawable() {
-        return backgroundDrawable;
+        return backgroundDrawable.get();
     }
 
 
     public Drawable getBackgroundDrawableSelected() {
-        return backgroundDrawableSelected;
+        return backgroundDrawableSelected.get();
     }
 
     public int getOrientation() {
@@ -804,9 +1405,14 @@ public class DrawableTextView extends View {
 
 
     public String getBadgeText() {
+        if (isBadgeCount) return new String(badgeChars, 0, badgeCharCount);
         return badgeText;
     }
 
+    public int getBadgeCount() {
+        return isBadgeCount ? badgeCount : 0;
+    }
+
     public float getTextSize() {
         return textSize;
     }
@@ -901,12 +1507,51 @@ public class DrawableTextView extends View {
     public void setBadgeText(String s) {
         if (!badgeEnable) throw new IllegalStateException("please check the attrs property [badgeEnable = true]");
         badgeText = TextUtils.isEmpty(s) ? "" : s;
-        refreshAndValidate();
+        isBadgeCount = false;
+        refreshBadge();
     }
 
     public void clearBadgeText() {
         badgeText = "";
-        refreshAndValidate();
+        isBadgeCount = false;
+        refreshBadge();
+    }
+
+    /**
+     * Show a number in the badge , a count above the max count is shown as max count + overflow suffix (e.g. 99+), 0 or less clears the badge.
+     * The digits are written into a reused buffer, and a layout is only requested if the width of the badge changed.
+     */
+    public void setBadgeCount(int count) {
+        if (!badgeEnable) throw new IllegalStateException("please check the attrs property [badgeEnable = true]");
+        if (isBadgeCount && badgeCount == count) return;
+        boolean wasEmpty = !hasBadgeText();
+        float oldWidth = wasEmpty ? 0 : Math.max(badgeMinWidth, measureBadgeText());
+        boolean wasCount = isBadgeCount;
+        isBadgeCount = true;
+        badgeCount = count;
+        badgeCharCount = writeBadgeCount(count);
+        boolean isEmpty = !hasBadgeText();
+        float newWidth = isEmpty ? 0 : Math.max(badgeMinWidth, measureBadgeText());
+        if (wasCount && wasEmpty == isEmpty && oldWidth == newWidth) {
+            invalidateBadge();
+        } else {
+            refreshBadge();
+        }
+    }
+
+    public void setBadgeCountOverflow(int maxCount, String suffix) {
+        if (maxCount <= 0) throw new IllegalArgumentException("the max count of badge must be greater than 0");
+        this.badgeMaxCount = maxCount;
+        this.badgeOverflowSuffix = suffix == null ? "" : suffix;
+        this.digitTablePaint = null;
+        if (isBadgeCount) {
+            badgeCharCount = writeBadgeCount(badgeCount);
+            refreshAndValidate();
+        }
+    }
+
+    public int getBadgeMaxCount() {
+        return badgeMaxCount;
     }
 
     public void setText(String s) {
@@ -916,12 +1561,12 @@ public class DrawableTextView extends View {
 
     public void setTextColor(int color) {
         this.textColor = color;
-        refreshAndValidate();
+        invalidateContent();
     }
 
     public void setDrawableBackground(Drawable drawable) {
-        this.backgroundDrawable = drawable;
-        refreshAndValidate();
+        this.backgroundDrawable.set(drawable);
+        invalidateContent();
     }
 
     public void setSelectedText(String s) {
@@ -945,28 +1590,51 @@ public class DrawableTextView extends View {
     }
 
     public void setReplaceDrawable(Drawable replaceDrawable) {
-        this.replaceDrawable = replaceDrawable;
+        this.replaceDrawable.set(replaceDrawable);
+        this.replaceDrawableRes = 0;
         refreshAndValidate();
     }
 
     public void setSelectedDrawable(Drawable selectedDrawable) {
-        this.selectedDrawable = selectedDrawable;
+        this.selectedDrawable.set(selectedDrawable);
+        this.selectedDrawableRes = 0;
         refreshAndValidate();
     }
 
-    public void setBadgeBackground(Drawable badgeBackground) {
-        this.badgeBackground = badgeBackground;
+    /**
+     * Tint the drawables of both states (SRC_IN) , e.g. one vector icon in grey and in the accent color.
+     * With {@link #setPrescaleDrawables} each tint is rasterized once and shared by all views.
+     *
+     * @param tintSelected the tint in selected state , 0 means the same as tint.
+     */
+    public void setDrawableTint(int tint, int tintSelected) {
+        this.drawableTint = tint;
+        this.drawableTintSelected = tintSelected == 0 ? tint : tintSelected;
+        applyDrawableTints();
         refreshAndValidate();
     }
 
+    public int getDrawableTint() {
+        return drawableTint;
+    }
+
+    public int getDrawableTintSelected() {
+        return drawableTintSelected;
+    }
+
+    public void setBadgeBackground(Drawable badgeBackground) {
+        this.badgeBackground.set(badgeBackground);
+        invalidateContent();
+    }
+
     public void setBadgeBackgroundSelected(Drawable badgeBackgroundSelected) {
-        this.badgeBackgroundSelected = badgeBackgroundSelected;
-        refreshAndValidate();
+        this.badgeBackgroundSelected.set(badgeBackgroundSelected);
+        invalidateContent();
     }
 
     public void setBackgroundDrawableSelected(Drawable backgroundDrawableSelected) {
-        this.backgroundDrawableSelected = backgroundDrawableSelected;
-        refreshAndValidate();
+        this.backgroundDrawableSelected.set(backgroundDrawableSelected);
+        invalidateContent();
     }
 
     public void setGravity(@Gravity int gravity) {
@@ -1016,7 +1684,7 @@ public class DrawableTextView extends View {
 
     public void setTextColorSelect(int textColorSelect) {
         this.textColorSelect = textColorSelect;
-        refreshAndValidate();
+        invalidateContent();
     }
 
     public void setBadgeMinWidth(float badgeMinWidth) {
@@ -1031,17 +1699,18 @@ public class DrawableTextView extends View {
 
     public void setBadgeEnable(boolean badgeEnable) {
         this.badgeEnable = badgeEnable;
+        if (badgeEnable && badgeTextPaint == null) initPaints();
         refreshAndValidate();
     }
 
     public void setBadgeTextColor(int badgeTextColor) {
         this.badgeTextColor = badgeTextColor;
-        refreshAndValidate();
+        invalidateContent();
     }
 
     public void setBadgeTextColorSelected(int badgeTextColorSelected) {
         this.badgeTextColorSelected = badgeTextColorSelected;
-        refreshAndValidate();
+        invalidateContent();
     }
 
     public void setBadgeTextSize(float badgeTextSize) {
@@ -1074,18 +1743,83 @@ public class DrawableTextView extends View {
         refreshAndValidate();
     }
 
+    /**
+     * Apply a shared style to this view , all styled attributes are replaced at once and the content is kept.
+     *
+     * @see DrawableTextStyle#get(Context, int)
+     */
+    public void setStyle(DrawableTextStyle style) {
+        if (style == null || style == this.style) return;
+        applyStyle(style);
+        if (textPaint != null) initPaints();
+        if (!selectionAble && isSelected) {
+            isSelected = false;
+            curAnimFraction = 0f;
+        }
+        initAnimator();
+        if (isAttachedToWindow()) {
+            detachBadgeOverlay();
+            attachBadgeOverlay();
+        }
+        refreshAndValidate();
+    }
+
+    /**
+     * Set all the content in one step , the same as calling the setters in {@link #update(Runnable)}.
+     *
+     * @param textSelected the text in selected state , null means the same as text.
+     */
+    public void setContent(String text, String textSelected, String badgeText, boolean selected) {
+        beginUpdate();
+        try {
+            setText(text);
+            setTextSelected(textSelected == null ? text : textSelected);
+            if (badgeEnable) setBadgeText(badgeText);
+            setSelected(selected);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    public DrawableTextStyle getStyle() {
+        return style;
+    }
+
+    public int getColorMode() {
+        return colorMode;
+    }
+
+    public void setColorMode(@ColorMode int colorMode) {
+        this.colorMode = colorMode;
+        invalidateContent();
+    }
+
     public void setAnimDuration(int animDuration) {
         this.animDuration = animDuration;
-        refreshAndValidate();
+        initAnimator();
     }
 
     public void setFontPath(String fontPath) {
         this.fontPath = fontPath;
+        textPaint.setTypeface(TypefaceCache.get(getContext(), fontPath, fontStyle));
         refreshAndValidate();
     }
 
     public void setFontStyle(int fontStyle) {
         this.fontStyle = fontStyle;
+        textPaint.setTypeface(TypefaceCache.get(getContext(), fontPath, fontStyle));
+        refreshAndValidate();
+    }
+
+    public void setBadgeFontPath(String badgeFontPath) {
+        this.badgeFontPath = badgeFontPath;
+        if (badgeTextPaint != null) badgeTextPaint.setTypeface(TypefaceCache.get(getContext(), badgeFontPath, badgeFontStyle));
+        refreshAndValidate();
+    }
+
+    public void setBadgeFontStyle(int badgeFontStyle) {
+        this.badgeFontStyle = badgeFontStyle;
+        if (badgeTextPaint != null) badgeTextPaint.setTypeface(TypefaceCache.get(getContext(), badgeFontPath, badgeFontStyle));
         refreshAndValidate();
     }
 
@@ -1131,6 +1865,179 @@ public class DrawableTextView extends View {
         refreshAndValidate();
     }
 
+    /**
+     * Shrink the text to the largest of the sizes min, min + step, ... max that fits into 'maxLength' x 'maxLines' , instead of
+     * ellipsizing it at the text size. The text is still ellipsized if it doesn't fit at min. Has no effect without 'maxLength'
+     * or with 'maxTextLength'. Without 'maxLines' (see {@link #setMaxLines}) an auto-sized text is kept to a single line , it would only wrap
+     * and never shrink otherwise. The sizes are found by a binary search and cached per text, see {@link AutoSizeCache}.
+     *
+     * @param min  the smallest text size in px , 0 turns auto-size off.
+     * @param max  the largest text size in px , 0 means the text size.
+     * @param step the granularity in px , 0 means 1px.
+     */
+    public void setAutoSizeTextRange(float min, float max, float step) {
+        if (min < 0 || max < 0 || step < 0) throw new IllegalArgumentException("the auto-size text sizes and step must not be negative");
+        this.autoSizeMinTextSize = min;
+        this.autoSizeMaxTextSize = max;
+        this.autoSizeStep = step;
+        refreshAndValidate();
+    }
+
+    public float getAutoSizeMinTextSize() {
+        return autoSizeMinTextSize;
+    }
+
+    public float getAutoSizeMaxTextSize() {
+        return autoSizeMaxTextSize;
+    }
+
+    public float getAutoSizeStep() {
+        return autoSizeStep;
+    }
+
+    /**
+     * @return the current measurement configuration , used to {@link PreparedContent#create} a content on a background thread.
+     */
+    public PreparedContent.Params getPrepareParams() {
+        return new PreparedContent.Params(textPaint, badgeEnable ? badgeTextPaint : null, maxLength, maxTextLength, lineLimit(), lineBreak);
+    }
+
+    /**
+     * Bind the texts of a content measured in advance , the measurement is skipped if the content still matches the configuration of this view.
+     */
+    public void setPreparedContent(PreparedContent content) {
+        this.preparedContent = content;
+        if (content != null) {
+            this.text = TextUtils.isEmpty(content.getText()) ? "" : content.getText();
+            this.textSelected = TextUtils.isEmpty(content.getTextSelected()) ? "" : content.getTextSelected();
+            if (badgeEnable) {
+                badgeText = TextUtils.isEmpty(content.getBadgeText()) ? "" : content.getBadgeText();
+                isBadgeCount = false;
+            }
+        }
+        refreshAndValidate();
+    }
+
+    public PreparedContent getPreparedContent() {
+        return preparedContent;
+    }
+
+    public int getLineBreak() {
+        return lineBreak;
+    }
+
+    public void setLineBreak(@LineBreak int lineBreak) {
+        this.lineBreak = lineBreak;
+        refreshAndValidate();
+    }
+
+    /**
+     * Draw the badge into the overlay of the parent , so badge changes never lay out or redraw this view and the badge may exceed its bounds.
+     * No space is reserved for the badge in this mode, it's meant for parents that don't scroll their children (e.g. a tab bar).
+     */
+    public void setBadgeInParentOverlay(boolean inParentOverlay) {
+        if (this.badgeInParentOverlay == inParentOverlay) return;
+        this.badgeInParentOverlay = inParentOverlay;
+        if (inParentOverlay) {
+            if (isAttachedToWindow()) attachBadgeOverlay();
+        } else {
+            detachBadgeOverlay();
+        }
+        refreshAndValidate();
+    }
+
+    public boolean isBadgeInParentOverlay() {
+        return badgeInParentOverlay;
+    }
+
+    /**
+     * Set an additional drawable at a side of the content , it's placed around the text and the drawable at 'orientation',
+     * so a leading icon and a trailing chevron can be drawn by a single view.
+     *
+     * @param selectedDrawable the drawable in selected state , null means the same drawable for both states.
+     * @param padding          the space between the drawable and the content.
+     */
+    public void setCompoundDrawable(@Orientation int side, Drawable drawable, Drawable selectedDrawable, float width, float height, float padding) {
+        if (side < Orientation.left || side > Orientation.bottom) throw new IllegalArgumentException("the side must be one of Orientation.left, top, right, bottom");
+        if (drawable == null && selectedDrawable == null) {
+            compoundDrawables[side] = null;
+        } else {
+            compoundDrawables[side] = new DrawableSlot(drawable, selectedDrawable == null ? drawable : selectedDrawable, width, height, padding);
+        }
+        hasCompoundDrawables = false;
+        for (DrawableSlot slot : compoundDrawables) hasCompoundDrawables |= slot != null;
+        refreshAndValidate();
+    }
+
+    /**
+     * Draw the bitmap / vector drawables from bitmaps downsampled to their exact size , see {@link ScaledDrawableCache}.
+     * It saves the filtering of large icons on every frame and the memory of the full size bitmaps that came from xml.
+     */
+    public void setPrescaleDrawables(boolean prescaleDrawables) {
+        if (this.prescaleDrawables == prescaleDrawables) return;
+        this.prescaleDrawables = prescaleDrawables;
+        if (!prescaleDrawables) {
+            replaceDrawable.set(ScaledDrawableCache.unwrap(getContext(), replaceDrawable.getSource()));
+            selectedDrawable.set(ScaledDrawableCache.unwrap(getContext(), selectedDrawable.getSource()));
+            applyDrawableTints();
+            for (DrawableSlot slot : compoundDrawables) {
+                if (slot == null) continue;
+                boolean same = slot.drawable.getSource() == slot.selectedDrawable.getSource();
+                slot.drawable.set(ScaledDrawableCache.unwrap(getContext(), slot.drawable.getSource()));
+                slot.selectedDrawable.set(same ? slot.drawable.getSource() : ScaledDrawableCache.unwrap(getContext(), slot.selectedDrawable.getSource()));
+            }
+        }
+        refreshAndValidate();
+    }
+
+    public boolean isPrescaleDrawables() {
+        return prescaleDrawables;
+    }
+
+    /**
+     * Record the output of each selected state once and draw the records , a selection transition blends the two records by their alpha
+     * instead of drawing every element again. Only used by hardware accelerated canvases on Android 10+.
+     * Call {@link #invalidateLayerCache()} after a drawable of this view was changed in place.
+     */
+    public void setLayerCacheEnabled(boolean enabled) {
+        if (this.layerCacheEnabled == enabled) return;
+        this.layerCacheEnabled = enabled;
+        if (!enabled) discardLayers();
+        invalidate();
+    }
+
+    public boolean isLayerCacheEnabled() {
+        return layerCacheEnabled;
+    }
+
+    public void invalidateLayerCache() {
+        layerVersion++;
+        invalidate();
+    }
+
+    private void discardLayers() {
+        if (stateLayers != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) stateLayers.discard();
+        stateLayers = null;
+    }
+
+    public void removeCompoundDrawable(@Orientation int side) {
+        setCompoundDrawable(side, null, null, 0, 0, 0);
+    }
+
+    public Drawable getCompoundDrawable(@Orientation int side) {
+        DrawableSlot slot = compoundDrawables[side];
+        return slot == null ? null : slot.drawable.get();
+    }
+
+    public Drawable getCompoundDrawableSelected(@Orientation int side) {
+        DrawableSlot slot = compoundDrawables[side];
+        return slot == null ? null : slot.selectedDrawable.get();
+    }
+
+    public void setOnCompoundDrawableClickListener(CompoundDrawableClickListener compoundDrawableClickListener) {
+        this.compoundDrawableClickListener = compoundDrawableClickListener;
+    }
+
     public void setOnBadgeClickListener(BadgeClickListener badgeClickListener) {
         this.badgeClickListener = badgeClickListener;
     }
@@ -1139,9 +2046,136 @@ public class DrawableTextView extends View {
         this.drawableClickListener = drawableClickListener;
     }
 
+    /**
+     * Apply several property changes with a single layout request / invalidation , must be paired with {@link #endUpdate()}.
+     * <pre>
+     * view.beginUpdate();
+     * try {
+     *     view.setText(...);
+     *     view.setTextColor(...);
+     * } finally {
+     *     view.endUpdate();
+     * }
+     * </pre>
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    public void endUpdate() {
+        if (updateDepth <= 0) throw new IllegalStateException("endUpdate() called without a matching beginUpdate()");
+        updateDepth--;
+        dispatchUpdate();
+    }
+
+    /**
+     * Same as wrapping the block with {@link #beginUpdate()} and {@link #endUpdate()}.
+     */
+    public void update(Runnable block) {
+        beginUpdate();
+        try {
+            block.run();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    //For the properties that change the content , the recorded layers are dropped too.
     private void refreshAndValidate() {
-        requestLayout();
-        postInvalidate();
+        layerVersion++;
+        refreshLayout();
+    }
+
+    private void refreshLayout() {
+        layoutDirty = true;
+        pendingLayout = true;
+        pendingInvalidate = true;
+        dispatchUpdate();
+    }
+
+    //For the properties that can never change the measured size , such as colors and backgrounds.
+    private void invalidateContent() {
+        layerVersion++;
+        pendingInvalidate = true;
+        dispatchUpdate();
+    }
+
+    /**
+     * A badge text change only recomputes the badge bounds before the redraw,
+     * unless the new badge size changes the space reserved for it around the content.
+     */
+    private void refreshBadge() {
+        if (layoutDirty || updateDepth > 0 || textPaint == null || badgeTextPaint == null) {
+            refreshAndValidate();
+            return;
+        }
+        calculateBadgeOffsets(badgeContentWidth, badgeContentHeight, badgeOffsetsTemp);
+        if (!Arrays.equals(badgeOffsets, badgeOffsetsTemp)) {
+            refreshAndValidate();
+            return;
+        }
+        calculateBadgeBounds();
+        updateBadgeOverlayBounds();
+        invalidateBadge();
+    }
+
+    //A dirty rect is ignored by hardware acceleration (and deprecated since API 28) , so the whole view is redrawn.
+    private void invalidateBadge() {
+        layerVersion++;
+        if (updateDepth > 0) {
+            pendingInvalidate = true;
+        } else if (badgeOverlay != null) {
+            badgeOverlay.invalidateSelf();
+        } else {
+            postInvalidate();
+        }
+    }
+
+    /**
+     * Nothing is measured here , a setter only marks the layout dirty. While attached the layout is rebuilt once by the pre draw pass of the
+     * next frame and only a changed layout size is propagated to the parent, other geometry changes (e.g. a text of the same width, gravity)
+     * are applied by that redraw. A detached or never measured view just requests a layout.
+     */
+    private void dispatchUpdate() {
+        if (updateDepth > 0) return;
+        if (pendingLayout) {
+            if (textPaint == null || getMeasuredWidth() == 0 || getMeasuredHeight() == 0 || !isAttachedToWindow()) requestLayout();
+            else pendingSizeCheck = true;
+        }
+        if (pendingInvalidate) {
+            postInvalidate();
+            if (badgeOverlay != null) badgeOverlay.invalidateSelf();
+        }
+        pendingLayout = false;
+        pendingInvalidate = false;
+    }
+
+    private class BadgeOverlayDrawable extends Drawable {
+
+        @Override
+        public void draw(Canvas canvas) {
+            //Drawn by the parent , so the visibility , translation and alpha of the host are applied here.
+            float alpha = getAlpha();
+            if (getVisibility() != VISIBLE || alpha <= 0f) return;
+            int count = canvas.save();
+            canvas.translate(getX(), getY());
+            if (alpha < 1f) canvas.saveLayerAlpha(badgeRect.left - 1, badgeRect.top - 1, badgeRect.right + 1, badgeRect.bottom + 1, (int) (alpha * 255 + 0.5f));
+            drawBadge(canvas);
+            canvas.restoreToCount(count);
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+        }
+
+        @Override
+        public void setColorFilter(ColorFilter colorFilter) {
+        }
+
+        @Override
+        public int getOpacity() {
+            return PixelFormat.TRANSLUCENT;
+        }
     }
 
     public interface BadgeClickListener {
@@ -1154,18 +2188,99 @@ public class DrawableTextView extends View {
         void onClick(DrawableTextView v);
     }
 
-    private static class DrawableValueAnimator {
+    public interface CompoundDrawableClickListener {
+
+        void onClick(DrawableTextView v, @Orientation int side);
+    }
+
+    @TargetApi(Build.VERSION_CODES.Q)
+    private static final class StateLayers {
+        //Indexed by the selected state , 0 unselected / 1 selected.
+        private final RenderNode[] nodes = {new RenderNode("dtv_unselected"), new RenderNode("dtv_selected")};
+        private final int[] versions = {-1, -1};
+
+        StateLayers() {
+            //The alpha of a transition is applied to each element of a record , not to an offscreen buffer of each node on every frame.
+            //It's what drawing the elements without the records looks like too , they cross fade one by one.
+            for (RenderNode node : nodes) node.setHasOverlappingRendering(false);
+        }
+
+        boolean isValid(int state, int version) {
+            return versions[state] == version && nodes[state].hasDisplayList();
+        }
+
+        Canvas begin(int state, int width, int height) {
+            nodes[state].setPosition(0, 0, width, height);
+            return nodes[state].beginRecording(width, height);
+        }
 
+        void end(int state, int version) {
+            nodes[state].endRecording();
+            versions[state] = version;
+        }
+
+        void draw(Canvas canvas, int state, float alpha) {
+            nodes[state].setAlpha(alpha);
+            canvas.drawRenderNode(nodes[state]);
+        }
+
+        void discard() {
+            for (RenderNode node : nodes) node.discardDisplayList();
+            versions[0] = versions[1] = -1;
+        }
+    }
+
+    private static class DrawableSlot {
+        private final DrawableHolder drawable, selectedDrawable;
+        private int drawableRes, selectedDrawableRes;
+        private final float width, height, padding;
+        private final Rect rect = new Rect();
+
+        DrawableSlot(Drawable drawable, Drawable selectedDrawable, float width, float height, float padding) {
+            this.drawable = new DrawableHolder(drawable);
+            this.selectedDrawable = new DrawableHolder(selectedDrawable);
+            this.width = width;
+            this.height = height;
+            this.padding = padding;
+        }
+
+        Drawable current(boolean isSelected) {
+            return isSelected ? selectedDrawable.get() : drawable.get();
+        }
+
+        void setBounds(float left, float top) {
+            rect.set((int) (left + 0.5f), (int) (top + 0.5f), (int) (left + width + 0.5f), (int) (top + height + 0.5f));
+        }
+
+        static float width(DrawableSlot slot, boolean isSelected) {
+            return slot == null || slot.current(isSelected) == null ? 0 : slot.width;
+        }
+
+        static float height(DrawableSlot slot, boolean isSelected) {
+            return slot == null || slot.current(isSelected) == null ? 0 : slot.height;
+        }
+
+        static float padding(DrawableSlot slot, boolean isSelected) {
+            return slot == null || slot.current(isSelected) == null ? 0 : slot.padding;
+        }
+    }
+
+    /**
+     * The per view animation state , it holds no animator of its own and is ticked by the shared {@link AnimationDriver}.
+     * An interrupted transition is reversed from the current fraction , the duration is scaled by the remaining distance.
+     */
+    static class DrawableValueAnimator {
+
+        private static final TimeInterpolator interpolator = new AccelerateDecelerateInterpolator();
         private OnAnimListener onAnimListener;
-        private ValueAnimator valueAnimator;
 
-        private long curDuration;
         private float curFraction;
-
-        private long maxDuration;
-        private float maxFraction;
+        private float startFraction;
+        private float endFraction;
         private long animDuration;
-        private boolean isSelected;
+        private long curDuration;
+        private long startTime = -1;
+        private boolean isRunning;
 
         void setDuration(long duration) {
             this.animDuration = duration;
@@ -1175,63 +2290,134 @@ public class DrawableTextView extends View {
             this.onAnimListener = listener;
         }
 
+        //Set the state without a transition and without notifying the listener.
+        void jumpTo(float fraction) {
+            if (isRunning) AnimationDriver.get().remove(this);
+            isRunning = false;
+            curFraction = endFraction = fraction;
+        }
+
+        float getFraction() {
+            return curFraction;
+        }
+
         void start(boolean isSelected) {
-            this.isSelected = isSelected;
-            boolean isRunning = valueAnimator != null && valueAnimator.isRunning();
-            if (valueAnimator != null) valueAnimator.cancel();
-            if (valueAnimator == null || !valueAnimator.isRunning()) {
-                valueAnimator = getAnim(isRunning);
-                valueAnimator.start();
+            startFraction = curFraction;
+            endFraction = isSelected ? 1.0f : 0.0f;
+            //Follows the animator duration scale of the developer options , 0 (animations off) jumps to the end.
+            curDuration = (long) (animDuration * durationScale() * Math.abs(endFraction - startFraction));
+            startTime = -1;
+            if (curDuration <= 0) {
+                if (isRunning) AnimationDriver.get().remove(this);
+                isRunning = false;
+                setFraction(endFraction);
                 return;
             }
+            isRunning = true;
+            AnimationDriver.get().add(this);
+        }
 
-            valueAnimator = getAnim(true);
-            valueAnimator.start();
+        //Jump to the end of a running transition.
+        void end() {
+            if (!isRunning) return;
+            AnimationDriver.get().remove(this);
+            isRunning = false;
+            setFraction(endFraction);
         }
 
-        private ValueAnimator getAnim(boolean isRunning) {
-            maxFraction = isRunning ? curFraction : 1.0f;
-            maxDuration = isRunning ? curDuration : animDuration;
-            ValueAnimator animator = new ValueAnimator();
-            animator.setInterpolator(new AccelerateDecelerateInterpolator());
-            setValues(animator);
-            setListener(animator);
-            return animator;
+        boolean isRunning() {
+            return isRunning;
         }
 
-        private void setValues(ValueAnimator animator) {
-            curFraction = 0;
-            curDuration = 0;
-            animator.setDuration(maxDuration);
-            animator.setFloatValues(0.0f, maxFraction);
+        private static float durationScale() {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O ? ValueAnimator.getDurationScale() : 1f;
         }
 
-        private void setListener(ValueAnimator animator) {
-            animator.addUpdateListener(animation -> {
-                curDuration = Math.min(animDuration, animation.getCurrentPlayTime());
-                curFraction = isSelected ? animation.getAnimatedFraction() : Math.max(0, maxFraction - animation.getAnimatedFraction());
-                if (onAnimListener != null) onAnimListener.onAnimFraction(curFraction);
-            });
+        /**
+         * @return false if the animation is finished.
+         */
+        boolean doFrame(long frameTimeNanos) {
+            if (startTime < 0) startTime = frameTimeNanos;
+            float t = Math.min(1.0f, (frameTimeNanos - startTime) / 1000000f / curDuration);
+            isRunning = t < 1.0f;
+            setFraction(startFraction + (endFraction - startFraction) * interpolator.getInterpolation(t));
+            return isRunning;
+        }
+
+        private void setFraction(float fraction) {
+            curFraction = fraction;
+            if (onAnimListener != null) onAnimListener.onAnimFraction(curFraction);
+        }
+    }
+
+    /**
+     * Ticks all running {@link DrawableValueAnimator}s in a single Choreographer frame callback , main thread only.
+     */
+    static final class AnimationDriver implements Choreographer.FrameCallback {
+
+        private static AnimationDriver instance;
+        private final List<DrawableValueAnimator> animators = new ArrayList<>();
+        private boolean isPosted = false;
+
+        static AnimationDriver get() {
+            if (instance == null) instance = new AnimationDriver();
+            return instance;
+        }
+
+        void add(DrawableValueAnimator animator) {
+            if (!animators.contains(animator)) animators.add(animator);
+            if (!isPosted) {
+                isPosted = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        void remove(DrawableValueAnimator animator) {
+            animators.remove(animator);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            isPosted = false;
+            for (int i = animators.size() - 1; i >= 0; i--) {
+                if (i >= animators.size()) continue;
+                DrawableValueAnimator animator = animators.get(i);
+                if (!animator.doFrame(frameTimeNanos)) animators.remove(animator);
+            }
+            if (!animators.isEmpty() && !isPosted) {
+                isPosted = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
         }
     }
 
     private static class TextInfo {
         private float textX;
         private float textY;
-        private final String text;
-        private final float textWidth;
+        //The line is the range [start, end) of text, so no substring is created per line.
+        private String text;
+        private int start, end;
+        private float textWidth;
 
-        TextInfo(String text, float textY, float maxWidth, Paint paint) {
+        TextInfo set(String text, int start, int end, float textY, float textWidth, Paint.FontMetrics metrics) {
             this.text = text;
-            this.textY = textY + paint.getFontMetrics().descent / 2f;
-            textWidth = TextUtils.isEmpty(text) ? 0 : paint.measureText(text);
+            this.start = start;
+            this.end = end;
+            this.textX = 0;
+            this.textY = textY + metrics.descent / 2f;
+            this.textWidth = start >= end ? 0 : textWidth;
+            return this;
+        }
+
+        TextInfo recycle() {
+            text = null;
+            return this;
         }
 
-        void update(float maxWidth, float maxHeight, float viewWidth, int gravity, float padding, int orientation, Paint paint) {
+        void update(float maxWidth, float maxHeight, float viewWidth, int gravity, float padding, int orientation, Paint.FontMetrics metrics) {
             if (((gravity & TextGravity.center) != 0 && (gravity & TextGravity.left) != 0) || ((gravity & TextGravity.left) != 0 && (gravity & TextGravity.right) != 0) || ((gravity & TextGravity.center) != 0 && (gravity & TextGravity.right) != 0)) {
                 throw new IllegalArgumentException("Only one of the horizontal arrangements of left, right and center is allowed to take effect");
             }
-            Paint.FontMetrics metrics = paint.getFontMetrics();
             if (orientation == Orientation.left || orientation == Orientation.right) {
                 textY -= (maxHeight / 2f) - metrics.descent;
             } else {
@@ -0,0 +1,257 @@
+package com.zj.dtv;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs many small labels rendered by a {@link DrawableTextRenderer} into a few shared atlas pages, for map / graph overlays that upload textures.
+ * <p>
+ * Identical contents are rendered once , {@link #obtain} returns the same {@link Region} for them. Regions are placed by a shelf packer:
+ * a label goes to the first shelf of a page that is tall enough (but not too tall) and has room left, otherwise a new shelf is opened.
+ * When all pages are full, the page holding the least recently used label is cleared and reused for the new labels , the labels on it
+ * are not repacked : all regions on it become invalid ({@link Region#isValid()}) and have to be obtained again.
+ * A label is keyed by its content and by the size / configuration of the renderer when it was rendered , so reconfiguring the renderer
+ * renders the labels again instead of returning the regions of the old configuration.
+ * {@link #getPageVersion} changes whenever a page is drawn into, so a page only needs to be uploaded again if its version changed.
+ * <p>
+ * Like the renderer , an atlas is confined to a single thread.
+ */
+@SuppressWarnings("unused")
+public final class LabelAtlas {
+
+    //Blank pixels around each label , keeps filtered sampling from bleeding into the neighbours.
+    private static final int GUTTER = 1;
+    //A label may use a shelf up to this much taller than itself before a new shelf is opened.
+    private static final float SHELF_FIT = 1.3f;
+
+    private final DrawableTextRenderer renderer;
+    private final int pageWidth, pageHeight, maxPages;
+    private final List<Page> pages = new ArrayList<>();
+    private final LinkedHashMap<Key, Region> regions = new LinkedHashMap<>(64, 0.75f, true);
+    private final Key lookupKey = new Key();
+    private final Canvas canvas = new Canvas();
+
+    public LabelAtlas(DrawableTextRenderer renderer, int pageWidth, int pageHeight, int maxPages) {
+        if (maxPages < 1) throw new IllegalArgumentException("maxPages must be at least 1");
+        this.renderer = renderer;
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * @param textSelected the text in selected state , null means the same as text.
+     * @return the region of the content , rendered into a page if it isn't in the atlas yet.
+     */
+    public Region obtain(String text, String textSelected, String badgeText, boolean selected) {
+        lookupKey.set(renderer, text, textSelected, badgeText, selected);
+        Region region = regions.get(lookupKey);
+        if (region != null) return region;
+        renderer.setContent(text, textSelected, badgeText, selected);
+        int w = renderer.getWidth(), h = renderer.getHeight();
+        if (w + GUTTER * 2 > pageWidth || h + GUTTER * 2 > pageHeight) {
+            throw new IllegalArgumentException("the label (" + w + "x" + h + ") doesn't fit into a page of " + pageWidth + "x" + pageHeight);
+        }
+        Page page = null;
+        for (Page p : pages) {
+            if (p.pack(w + GUTTER * 2, h + GUTTER * 2)) {
+                page = p;
+                break;
+            }
+        }
+        if (page == null && pages.size() < maxPages) {
+            page = new Page(pages.size(), renderer.getBitmapPool().obtain(pageWidth, pageHeight, Bitmap.Config.ARGB_8888));
+            pages.add(page);
+            page.pack(w + GUTTER * 2, h + GUTTER * 2);
+        }
+        if (page == null) {
+            page = evictLeastRecentlyUsedPage();
+            page.pack(w + GUTTER * 2, h + GUTTER * 2);
+        }
+        region = new Region(page, page.packedX + GUTTER, page.packedY + GUTTER, w, h, pageWidth, pageHeight);
+        canvas.setBitmap(page.bitmap);
+        try {
+            canvas.save();
+            canvas.clipRect(region.bounds);
+            canvas.translate(region.bounds.left, region.bounds.top);
+            renderer.draw(canvas);
+            canvas.restore();
+        } finally {
+            canvas.setBitmap(null);
+        }
+        page.version++;
+        regions.put(new Key().set(renderer, text, textSelected, badgeText, selected), region);
+        return region;
+    }
+
+    //The eldest entry of the access ordered map is the least recently used label , its page is the one to clear.
+    //Without any label left the pages only hold released space , the first one is reused.
+    private Page evictLeastRecentlyUsedPage() {
+        if (regions.isEmpty()) {
+            Page page = pages.get(0);
+            page.clear();
+            return page;
+        }
+        Page page = regions.values().iterator().next().page;
+        Iterator<Map.Entry<Key, Region>> it = regions.entrySet().iterator();
+        while (it.hasNext()) {
+            Region r = it.next().getValue();
+            if (r.page == page) {
+                r.valid = false;
+                it.remove();
+            }
+        }
+        page.clear();
+        return page;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public Bitmap getPage(int index) {
+        return pages.get(index).bitmap;
+    }
+
+    public int getPageVersion(int index) {
+        return pages.get(index).version;
+    }
+
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Invalidate all regions and give the pages back to the bitmap pool.
+     */
+    public void clear() {
+        for (Region r : regions.values()) r.valid = false;
+        regions.clear();
+        for (Page p : pages) renderer.getBitmapPool().release(p.bitmap);
+        pages.clear();
+    }
+
+    private final class Page {
+        private final int index;
+        private final Bitmap bitmap;
+        //Shelves are stacked from the top , each one is filled from the left.
+        private final List<int[]> shelves = new ArrayList<>();
+        private int shelfBottom = 0, version = 0;
+        private int packedX, packedY;
+
+        Page(int index, Bitmap bitmap) {
+            this.index = index;
+            this.bitmap = bitmap;
+        }
+
+        //Find a place for w x h , the result is in packedX / packedY.
+        boolean pack(int w, int h) {
+            for (int[] shelf : shelves) {
+                //shelf = {top, height, usedWidth}
+                if (h <= shelf[1] && h * SHELF_FIT >= shelf[1] && shelf[2] + w <= pageWidth) {
+                    packedX = shelf[2];
+                    packedY = shelf[0];
+                    shelf[2] += w;
+                    return true;
+                }
+            }
+            if (shelfBottom + h > pageHeight) return false;
+            shelves.add(new int[]{shelfBottom, h, w});
+            packedX = 0;
+            packedY = shelfBottom;
+            shelfBottom += h;
+            return true;
+        }
+
+        void clear() {
+            shelves.clear();
+            shelfBottom = 0;
+            bitmap.eraseColor(0);
+            version++;
+        }
+    }
+
+    /**
+     * The place of a label in an atlas page , in pixels and in normalized texture coordinates.
+     */
+    public static final class Region {
+        private final Page page;
+        private final Rect bounds = new Rect();
+        private final RectF uv = new RectF();
+        private boolean valid = true;
+
+        private Region(Page page, int x, int y, int w, int h, int pageWidth, int pageHeight) {
+            this.page = page;
+            bounds.set(x, y, x + w, y + h);
+            uv.set(x / (float) pageWidth, y / (float) pageHeight, (x + w) / (float) pageWidth, (y + h) / (float) pageHeight);
+        }
+
+        public int getPageIndex() {
+            return page.index;
+        }
+
+        public Bitmap getPage() {
+            return page.bitmap;
+        }
+
+        public Rect getBounds() {
+            return bounds;
+        }
+
+        public RectF getUv() {
+            return uv;
+        }
+
+        /**
+         * @return false once the page was cleared to make room for other labels.
+         */
+        public boolean isValid() {
+            return valid;
+        }
+    }
+
+    private static final class Key {
+        private String text, textSelected, badgeText;
+        private boolean selected;
+        private int width, height, version;
+
+        Key set(DrawableTextRenderer renderer, String text, String textSelected, String badgeText, boolean selected) {
+            this.width = renderer.getFixedWidth();
+            this.height = renderer.getFixedHeight();
+            this.version = renderer.getVersion();
+            this.text = text;
+            this.textSelected = textSelected == null ? text : textSelected;
+            this.badgeText = badgeText;
+            this.selected = selected;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return selected == k.selected && width == k.width && height == k.height && version == k.version && TextUtils.equals(text, k.text) && TextUtils.equals(textSelected, k.textSelected) && TextUtils.equals(badgeText, k.badgeText);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = text == null ? 0 : text.hashCode();
+            h = 31 * h + (textSelected == null ? 0 : textSelected.hashCode());
+            h = 31 * h + (badgeText == null ? 0 : badgeText.hashCode());
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + version;
+            return 31 * h + (selected ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.zj.dtv;
+
+import android.graphics.Paint;
+import android.text.TextUtils;
+
+/**
+ * Immutable measured text of a {@link DrawableTextView} , similar to PrecomputedText for the text / selected text / badge of this view.
+ * <p>
+ * Get the {@link Params} of a configured view on the main thread with {@link DrawableTextView#getPrepareParams()} ,
+ * then {@link #create} the content on any thread (e.g. in a RecyclerView prefetch executor) and bind it with
+ * {@link DrawableTextView#setPreparedContent}. Binding skips the measurement and line breaking as long as the
+ * params still match the view , the remaining geometry only depends on the host size and is computed during layout.
+ */
+@SuppressWarnings("unused")
+public final class PreparedContent {
+
+    private final Params params;
+    private final String text, textSelected, badgeText;
+    private final TextMeasureCache.Measurement textMeasurement, selectedMeasurement, badgeMeasurement;
+
+    private PreparedContent(Params params, String text, String textSelected, String badgeText) {
+        this.params = params;
+        this.text = text;
+        this.textSelected = textSelected;
+        this.badgeText = badgeText;
+        TextMeasureCache.Key key = new TextMeasureCache.Key();
+        Paint paint = params.newTextPaint();
+        textMeasurement = TextUtils.isEmpty(text) ? null : TextMeasureCache.measure(paint, text, params.maxLength, params.maxTextLength, params.maxLines, params.lineBreak, key);
+        selectedMeasurement = TextUtils.isEmpty(textSelected) ? null : TextMeasureCache.measure(paint, textSelected, params.maxLength, params.maxTextLength, params.maxLines, params.lineBreak, key);
+        Paint badgePaint = params.newBadgeTextPaint();
+        badgeMeasurement = TextUtils.isEmpty(badgeText) || badgePaint == null ? null : TextMeasureCache.measure(badgePaint, badgeText, -1, -1, -1, DrawableTextView.LineBreak.chars, key);
+    }
+
+    /**
+     * Measure the content , safe to be called from any thread.
+     *
+     * @param textSelected the text in selected state , null means the same as text.
+     */
+    public static PreparedContent create(Params params, String text, String textSelected, String badgeText) {
+        if (params == null) throw new NullPointerException("params == null");
+        return new PreparedContent(params, text, textSelected == null ? text : textSelected, badgeText);
+    }
+
+    public Params getParams() {
+        return params;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getTextSelected() {
+        return textSelected;
+    }
+
+    public String getBadgeText() {
+        return badgeText;
+    }
+
+    TextMeasureCache.Measurement find(Paint paint, String s, float maxLength, int maxTextLength, int maxLines, int lineBreak) {
+        if (s == null) return null;
+        if (params.text.matches(paint) && maxLength == params.maxLength && maxTextLength == params.maxTextLength && maxLines == params.maxLines && lineBreak == params.lineBreak) {
+            if (s.equals(text)) return textMeasurement;
+            if (s.equals(textSelected)) return selectedMeasurement;
+        }
+        if (maxLength < 0 && maxTextLength < 0 && lineBreak == DrawableTextView.LineBreak.chars && params.badge != null && params.badge.matches(paint) && s.equals(badgeText)) {
+            return badgeMeasurement;
+        }
+        return null;
+    }
+
+    /**
+     * The measurement related configuration of a view , captured on the main thread.
+     */
+    public static final class Params {
+        //The badge state is null when the badge is disabled.
+        private final TextMeasureCache.PaintState text, badge;
+        private final float maxLength;
+        private final int maxTextLength, maxLines, lineBreak;
+
+        Params(Paint textPaint, Paint badgeTextPaint, float maxLength, int maxTextLength, int maxLines, int lineBreak) {
+            this.text = new TextMeasureCache.PaintState().set(textPaint);
+            this.badge = badgeTextPaint == null ? null : new TextMeasureCache.PaintState().set(badgeTextPaint);
+            this.maxLength = maxLength;
+            this.maxTextLength = maxTextLength;
+            this.maxLines = maxLines;
+            this.lineBreak = lineBreak;
+        }
+
+        private Paint newTextPaint() {
+            return newPaint(text);
+        }
+
+        private Paint newBadgeTextPaint() {
+            return badge != null ? newPaint(badge) : null;
+        }
+
+        private static Paint newPaint(TextMeasureCache.PaintState state) {
+            Paint paint = new Paint();
+            paint.setAntiAlias(true);
+            state.apply(paint);
+            paint.setTextAlign(Paint.Align.CENTER);
+            return paint;
+        }
+    }
+}
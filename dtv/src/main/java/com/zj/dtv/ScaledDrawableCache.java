@@ -0,0 +1,163 @@
+package com.zj.dtv;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Process-wide cache of drawables downsampled to the exact size they are drawn at , used by {@link DrawableTextView#setPrescaleDrawables}.
+ * <p>
+ * Icons are often decoded at several times the size of 'dtv_drawableWidth' / 'dtv_drawableHeight' , so every frame filters a large bitmap.
+ * A bitmap, vector or shape drawable is rasterized once into a bitmap of the target size and then drawn 1:1 , so a vector doesn't replay
+ * its path ops on every frame of a cross fade. The key is the drawable resource id (or the constant state for drawables set in code) , the size,
+ * the tint, the density and the ui mode, so all views showing the same icon share one bitmap. The theme is only part of the key for a resource
+ * that resolves theme attributes , the same icon in two activities shares one bitmap otherwise. The key only
+ * references the constant state and the theme weakly , an entry doesn't keep the full size source alive. Animated and stateful drawables are never rasterized.
+ */
+@SuppressWarnings("unused")
+public final class ScaledDrawableCache {
+
+    public static final int DEFAULT_MAX_KB = 4 * 1024;
+    private static final LruCache<Key, Bitmap> cache = new LruCache<Key, Bitmap>(DEFAULT_MAX_KB) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return Math.max(1, value.getAllocationByteCount() / 1024);
+        }
+    };
+
+    private ScaledDrawableCache() {
+    }
+
+    public static void setMaxSize(int maxKb) {
+        cache.resize(maxKb);
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * @param resId the resource of the drawable , 0 if it's unknown.
+     * @param tint  the color the drawable is tinted with (SRC_IN) , 0 for none.
+     * @return a drawable of exactly width x height , or the drawable itself if it can't be rasterized.
+     */
+    static Drawable get(Context context, int resId, Drawable drawable, int width, int height, int tint) {
+        if (drawable == null || width <= 0 || height <= 0) return drawable;
+        if (drawable instanceof ScaledBitmapDrawable) {
+            ScaledBitmapDrawable scaled = (ScaledBitmapDrawable) drawable;
+            if (scaled.width == width && scaled.height == height && scaled.tint == tint) return drawable;
+            resId = scaled.resId;
+            drawable = unwrap(context, scaled);
+        }
+        if (drawable instanceof Animatable || drawable.isStateful()) return drawable;
+        Drawable.ConstantState state = drawable.getConstantState();
+        if (resId == 0 && state == null) return drawable;
+        Resources res = context.getResources();
+        //A resource without theme attributes (or a drawable set in code) is drawn the same in every theme.
+        Object source = resId == 0 ? state : state == null || state.canApplyTheme() ? context.getTheme() : null;
+        Key key = new Key(resId, source, width, height, tint, res.getDisplayMetrics().densityDpi, res.getConfiguration().uiMode);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap == null) {
+            bitmap = rasterize(res, drawable, state, width, height, tint);
+            Bitmap old = cache.put(key, bitmap);
+            if (old != null) {
+                cache.put(key, old);
+                bitmap = old;
+            }
+        }
+        //Keep the source only if it can't be loaded again by the resource id , so a full size bitmap from the resources can be released.
+        return new ScaledBitmapDrawable(res, bitmap, resId, resId != 0 ? null : state, width, height, tint);
+    }
+
+    static boolean isScaled(Drawable drawable) {
+        return drawable instanceof ScaledBitmapDrawable;
+    }
+
+    /**
+     * @return the original drawable of a drawable returned by {@link #get} , loaded again if it was released.
+     */
+    static Drawable unwrap(Context context, Drawable drawable) {
+        if (!(drawable instanceof ScaledBitmapDrawable)) return drawable;
+        ScaledBitmapDrawable scaled = (ScaledBitmapDrawable) drawable;
+        return scaled.source != null ? scaled.source.newDrawable(context.getResources()) : context.getResources().getDrawable(scaled.resId, context.getTheme());
+    }
+
+    private static Bitmap rasterize(Resources res, Drawable drawable, Drawable.ConstantState state, int width, int height, int tint) {
+        if (tint == 0 && drawable instanceof BitmapDrawable && ((BitmapDrawable) drawable).getBitmap() != null) {
+            return Bitmap.createScaledBitmap(((BitmapDrawable) drawable).getBitmap(), width, height, true);
+        }
+        //Draw a copy , the bounds / alpha of the caller's drawable are left untouched.
+        Drawable d = state != null ? state.newDrawable(res) : drawable;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        d.setBounds(0, 0, width, height);
+        Canvas canvas = new Canvas(bitmap);
+        d.draw(canvas);
+        //The same as Drawable#setTint with the default mode , without mutating the drawable.
+        if (tint != 0) canvas.drawColor(tint, PorterDuff.Mode.SRC_IN);
+        return bitmap;
+    }
+
+    static final class ScaledBitmapDrawable extends BitmapDrawable {
+        private final int resId, width, height, tint;
+        private final Drawable.ConstantState source;
+
+        ScaledBitmapDrawable(Resources res, Bitmap bitmap, int resId, Drawable.ConstantState source, int width, int height, int tint) {
+            super(res, bitmap);
+            this.resId = resId;
+            this.source = source;
+            this.width = width;
+            this.height = height;
+            this.tint = tint;
+        }
+    }
+
+    private static final class Key {
+        private final int resId, width, height, tint, density, uiMode, hash;
+        //A drawable set in code is keyed by its constant state , a themed resource by the theme its attributes are resolved with , null for neither.
+        private final WeakReference<Object> source;
+
+        Key(int resId, Object source, int width, int height, int tint, int density, int uiMode) {
+            this.resId = resId;
+            this.source = source == null ? null : new WeakReference<>(source);
+            this.width = width;
+            this.height = height;
+            this.tint = tint;
+            this.density = density;
+            this.uiMode = uiMode;
+            Object s = source;
+            int h = resId;
+            h = 31 * h + (s == null ? 0 : resId != 0 ? s.hashCode() : System.identityHashCode(s));
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + tint;
+            h = 31 * h + density;
+            this.hash = 31 * h + uiMode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            if (resId != k.resId || width != k.width || height != k.height || tint != k.tint || density != k.density || uiMode != k.uiMode) return false;
+            if (source == null || k.source == null) return source == k.source;
+            Object s = source.get(), ks = k.source.get();
+            //A collected source never matches again , the entry is dropped by the LRU eviction.
+            if (s == null || ks == null) return false;
+            return resId != 0 ? s.equals(ks) : s == ks;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
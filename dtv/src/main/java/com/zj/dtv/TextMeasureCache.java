@@ -0,0 +1,303 @@
+package com.zj.dtv;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+import java.text.BreakIterator;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Process-wide LRU cache of the line breaking results of {@link DrawableTextView}, shared by all instances.
+ * <p>
+ * The key is (text, {@link PaintState}, maxLength, maxTextLength, maxLines, lineBreak) , the value holds the broken lines as ranges of
+ * the (possibly ellipsized) text and the width of each line, so rebinding the same labels or badge counts skips
+ * Paint.measureText / breakText entirely. {@link #getHitCount()} and {@link #getMissCount()} can be used to check the efficiency.
+ */
+@SuppressWarnings("unused")
+public final class TextMeasureCache {
+
+    public static final int DEFAULT_MAX_SIZE = 512;
+    private static final String ellipse = "\u2026";
+    //The characters given to breakText for the first line , the window grows to the longest line.
+    private static final int INITIAL_WINDOW = 32;
+    private static final LruCache<Key, Measurement> cache = new LruCache<>(DEFAULT_MAX_SIZE);
+    private static final ThreadLocal<BreakIterator> characterIterator = new ThreadLocal<BreakIterator>() {
+        @Override
+        protected BreakIterator initialValue() {
+            return BreakIterator.getCharacterInstance();
+        }
+    };
+    private static final ThreadLocal<BreakIterator> lineIterator = new ThreadLocal<BreakIterator>() {
+        @Override
+        protected BreakIterator initialValue() {
+            return BreakIterator.getLineInstance();
+        }
+    };
+
+    private TextMeasureCache() {
+    }
+
+    public static int getHitCount() {
+        return cache.hitCount();
+    }
+
+    public static int getMissCount() {
+        return cache.missCount();
+    }
+
+    public static void setMaxSize(int maxSize) {
+        cache.resize(maxSize);
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    /**
+     * @param lookupKey a key owned by the caller and reused for the lookups , it is never stored in the cache.
+     */
+    static Measurement measure(Paint paint, String s, float maxLength, int maxTextLength, int maxLines, int lineBreak, Key lookupKey) {
+        lookupKey.set(s, paint, maxLength, maxTextLength, maxLines, lineBreak);
+        Measurement m = cache.get(lookupKey);
+        if (m == null) {
+            m = breakLines(paint, s, maxLength, maxTextLength, maxLines, lineBreak);
+            cache.put(new Key().set(s, paint, maxLength, maxTextLength, maxLines, lineBreak), m);
+        }
+        return m;
+    }
+
+    /**
+     * Line breaks s without reading or filling the cache , for the probes of {@link AutoSizeCache} that would only evict the labels in use.
+     */
+    static boolean isTruncated(Paint paint, String s, float maxLength, int maxLines, int lineBreak) {
+        return breakLines(paint, s, maxLength, -1, maxLines, lineBreak).isTruncated();
+    }
+
+    /**
+     * Lines are found by character offsets into s , each line is measured on its own. breakText copies the range it is given , so it only gets
+     * a window after the line start that is doubled while the whole window fits , the cost stays linear in the text length.
+     * A break never splits a grapheme cluster , with {@link DrawableTextView.LineBreak#words} it also moves back to the last word boundary of the line.
+     * Only the truncated last line is copied to append the ellipsis.
+     */
+    private static Measurement breakLines(Paint paint, String s, float maxLength, int maxTextLength, int maxLines, int lineBreak) {
+        float textLen = paint.measureText(s);
+        if ((maxLength <= 0 && maxTextLength <= 0) || (maxTextLength > 0 && maxLength <= 0 && s.length() <= maxTextLength) || (maxTextLength <= 0 && textLen <= maxLength)) {
+            return new Measurement(s, new int[]{0}, new int[]{s.length()}, new float[]{textLen}, textLen, null);
+        } else if (maxLength > 0 && maxTextLength > 0) {
+            throw new IllegalArgumentException("unsupported to set both of 'maxLength' and 'maxTextLength' , Because the priority cannot be determined in different environments.");
+        }
+        final int len = s.length();
+        final int lineCount = Math.max(1, maxLines);
+        BreakIterator graphemes = characterIterator.get();
+        graphemes.setText(s);
+        BreakIterator words = null;
+        if (lineBreak == DrawableTextView.LineBreak.words) {
+            words = lineIterator.get();
+            words.setText(s);
+        }
+        float textWidth = maxTextLength > 0 ? paint.measureText(s, 0, graphemeBoundary(graphemes, 0, Math.min(len, maxTextLength))) : maxLength;
+        int[] starts = new int[Math.min(lineCount, len)];
+        int[] ends = new int[starts.length];
+        float[] widths = new float[starts.length];
+        String lastLine = null;
+        int count = 0;
+        int start = 0;
+        int window = INITIAL_WINDOW;
+        while (start < len && count < lineCount) {
+            int end;
+            if (maxTextLength > 0) {
+                end = Math.min(len, start + maxTextLength);
+            } else {
+                int windowEnd;
+                while (true) {
+                    windowEnd = Math.min(len, start + window);
+                    end = start + paint.breakText(s, start, windowEnd, true, maxLength, null);
+                    if (end < windowEnd || windowEnd == len) break;
+                    window *= 2;
+                }
+            }
+            end = graphemeBoundary(graphemes, start, end);
+            if (words != null && end < len) end = wordBoundary(words, start, end);
+            int visibleEnd = end;
+            if (words != null) while (visibleEnd > start && Character.isWhitespace(s.charAt(visibleEnd - 1))) visibleEnd--;
+            starts[count] = start;
+            ends[count] = visibleEnd;
+            if (count == lineCount - 1 && end < len) {
+                int ellipsizedEnd;
+                if (maxTextLength > 0) {
+                    ellipsizedEnd = Math.max(start, visibleEnd - ellipse.length());
+                } else {
+                    float available = maxLength - paint.measureText(ellipse);
+                    ellipsizedEnd = available <= 0 ? start : start + paint.breakText(s, start, visibleEnd, true, available, null);
+                }
+                if (ellipsizedEnd > start) ellipsizedEnd = graphemeBoundary(graphemes, start, ellipsizedEnd);
+                if (ellipsizedEnd > visibleEnd) ellipsizedEnd = start;
+                lastLine = s.substring(start, ellipsizedEnd) + ellipse;
+                starts[count] = 0;
+                ends[count] = lastLine.length();
+                widths[count] = paint.measureText(lastLine);
+            } else {
+                widths[count] = paint.measureText(s, start, visibleEnd);
+            }
+            textWidth = Math.max(textWidth, widths[count]);
+            count++;
+            start = end;
+            if (words != null) while (start < len && Character.isWhitespace(s.charAt(start))) start++;
+        }
+        if (count < starts.length) {
+            starts = Arrays.copyOf(starts, count);
+            ends = Arrays.copyOf(ends, count);
+            widths = Arrays.copyOf(widths, count);
+        }
+        return new Measurement(s, starts, ends, widths, textWidth, lastLine);
+    }
+
+    //The last grapheme boundary in (start, end] , or the first one after start if a single cluster doesn't fit.
+    private static int graphemeBoundary(BreakIterator it, int start, int end) {
+        if (it.isBoundary(end) && end > start) return end;
+        int b = it.preceding(end);
+        if (b > start) return b;
+        b = it.following(start);
+        return b == BreakIterator.DONE ? end : b;
+    }
+
+    private static int wordBoundary(BreakIterator it, int start, int end) {
+        int b = it.isBoundary(end) ? end : it.preceding(end);
+        return b > start ? b : end;
+    }
+
+    /**
+     * Immutable result of a line breaking , line i is the range [lineStarts[i], lineEnds[i]) of {@link #getLineText(int)}.
+     */
+    static final class Measurement {
+        final String text;
+        final int[] lineStarts;
+        final int[] lineEnds;
+        final float[] lineWidths;
+        final float width;
+        //The truncated last line with the ellipsis , null if the text isn't truncated.
+        private final String ellipsizedLine;
+
+        Measurement(String text, int[] lineStarts, int[] lineEnds, float[] lineWidths, float width, String ellipsizedLine) {
+            this.text = text;
+            this.ellipsizedLine = ellipsizedLine;
+            this.lineStarts = lineStarts;
+            this.lineEnds = lineEnds;
+            this.lineWidths = lineWidths;
+            this.width = width;
+        }
+
+        int getLineCount() {
+            return lineStarts.length;
+        }
+
+        boolean isTruncated() {
+            return ellipsizedLine != null;
+        }
+
+        String getLineText(int line) {
+            return ellipsizedLine != null && line == lineStarts.length - 1 ? ellipsizedLine : text;
+        }
+    }
+
+    /**
+     * The values of a paint that change the width of a text , compared to tell whether a measurement made with another paint still applies.
+     */
+    static final class PaintState {
+        private Typeface typeface;
+        private float textSize, letterSpacing, textScaleX;
+        private boolean fakeBold;
+        private Locale locale;
+
+        PaintState set(Paint paint) {
+            typeface = paint.getTypeface();
+            textSize = paint.getTextSize();
+            letterSpacing = paint.getLetterSpacing();
+            textScaleX = paint.getTextScaleX();
+            fakeBold = paint.isFakeBoldText();
+            locale = paint.getTextLocale();
+            return this;
+        }
+
+        //For the keys of results that don't depend on the text size of the paint.
+        PaintState setWithoutSize(Paint paint) {
+            set(paint);
+            textSize = 0;
+            return this;
+        }
+
+        boolean matches(Paint paint) {
+            return paint.getTextSize() == textSize && paint.getTypeface() == typeface && paint.getLetterSpacing() == letterSpacing && paint.getTextScaleX() == textScaleX && paint.isFakeBoldText() == fakeBold && equals(paint.getTextLocale(), locale);
+        }
+
+        void apply(Paint paint) {
+            paint.setTypeface(typeface);
+            paint.setTextSize(textSize);
+            paint.setLetterSpacing(letterSpacing);
+            paint.setTextScaleX(textScaleX);
+            paint.setFakeBoldText(fakeBold);
+            if (locale != null) paint.setTextLocale(locale);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PaintState)) return false;
+            PaintState p = (PaintState) o;
+            return textSize == p.textSize && typeface == p.typeface && letterSpacing == p.letterSpacing && textScaleX == p.textScaleX && fakeBold == p.fakeBold && equals(locale, p.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = typeface == null ? 0 : System.identityHashCode(typeface);
+            h = 31 * h + Float.floatToIntBits(textSize);
+            h = 31 * h + Float.floatToIntBits(letterSpacing);
+            h = 31 * h + Float.floatToIntBits(textScaleX);
+            h = 31 * h + (fakeBold ? 1 : 0);
+            return 31 * h + (locale == null ? 0 : locale.hashCode());
+        }
+
+        private static boolean equals(Locale a, Locale b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+
+    static final class Key {
+        private String text;
+        private final PaintState paint = new PaintState();
+        private float maxLength;
+        private int maxTextLength;
+        private int maxLines;
+        private int lineBreak;
+
+        Key set(String text, Paint paint, float maxLength, int maxTextLength, int maxLines, int lineBreak) {
+            this.text = text;
+            this.paint.set(paint);
+            this.maxLength = maxLength;
+            this.maxTextLength = maxTextLength;
+            this.maxLines = maxLines;
+            this.lineBreak = lineBreak;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return maxLength == k.maxLength && maxTextLength == k.maxTextLength && maxLines == k.maxLines && lineBreak == k.lineBreak && paint.equals(k.paint) && text.equals(k.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = text.hashCode();
+            h = 31 * h + paint.hashCode();
+            h = 31 * h + Float.floatToIntBits(maxLength);
+            h = 31 * h + maxTextLength;
+            h = 31 * h + maxLines;
+            return 31 * h + lineBreak;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.zj.dtv;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Typeface;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of the typefaces used by {@link DrawableTextView}, keyed by asset path and style.
+ * <p>
+ * {@link Typeface#createFromAsset} parses the font file on every call, so views inflated with the same
+ * 'dtv_textFontPath' / 'dtv_badgeTextFontPath' share a single instance from here.
+ * Fonts can be loaded ahead of time with {@link #preload} , e.g. in Application.onCreate or on a worker thread.
+ */
+@SuppressWarnings("unused")
+public final class TypefaceCache {
+
+    public static final int DEFAULT_MAX_SIZE = 16;
+    private static final LruCache<String, Typeface> cache = new LruCache<>(DEFAULT_MAX_SIZE);
+
+    private TypefaceCache() {
+    }
+
+    /**
+     * @param path  the .ttf asset path, the default typeface is used if it's empty.
+     * @param style one of Typeface.NORMAL, BOLD, ITALIC, BOLD_ITALIC , or a negative value to keep the style of the font file.
+     */
+    @SuppressLint("WrongConstant")
+    public static Typeface get(Context context, String path, int style) {
+        if (style >= 0) checkStyle(style);
+        String key = getKey(path, style);
+        Typeface typeface = cache.get(key);
+        if (typeface != null) return typeface;
+        typeface = Typeface.DEFAULT;
+        if (!TextUtils.isEmpty(path)) typeface = Typeface.createFromAsset(context.getApplicationContext().getAssets(), path);
+        if (style >= 0) typeface = Typeface.create(typeface, style);
+        Typeface old = cache.put(key, typeface);
+        //Another thread may have created it in the meantime , keep the first one to stay shared.
+        if (old != null) {
+            cache.put(key, old);
+            return old;
+        }
+        return typeface;
+    }
+
+    public static void preload(Context context, int style, String... paths) {
+        for (String path : paths) get(context, path, style);
+    }
+
+    public static void preload(Context context, String... paths) {
+        preload(context, -1, paths);
+    }
+
+    public static void setMaxSize(int maxSize) {
+        cache.resize(maxSize);
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    static void checkStyle(int style) {
+        switch (style) {
+            case Typeface.BOLD:
+            case Typeface.ITALIC:
+            case Typeface.NORMAL:
+            case Typeface.BOLD_ITALIC:
+                return;
+            default:
+                throw new IllegalArgumentException("The font must follow the specified size and be in one of Typeface.BOLD, Typeface.ITALIC, Typeface.NORMAL, Typeface.BOLD_ITALIC");
+        }
+    }
+
+    private static String getKey(String path, int style) {
+        return (path == null ? "" : path) + "#" + style;
+    }
+}